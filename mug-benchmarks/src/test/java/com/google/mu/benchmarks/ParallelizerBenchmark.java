@@ -0,0 +1,93 @@
+/*****************************************************************************
+ * ------------------------------------------------------------------------- *
+ * Licensed under the Apache License, Version 2.0 (the "License");           *
+ * you may not use this file except in compliance with the License.          *
+ * You may obtain a copy of the License at                                   *
+ *                                                                           *
+ * http://www.apache.org/licenses/LICENSE-2.0                                *
+ *                                                                           *
+ * Unless required by applicable law or agreed to in writing, software       *
+ * distributed under the License is distributed on an "AS IS" BASIS,         *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  *
+ * See the License for the specific language governing permissions and       *
+ * limitations under the License.                                            *
+ *****************************************************************************/
+package com.google.mu.benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Benchmark;
+import com.google.caliper.Param;
+import com.google.mu.util.concurrent.Parallelizer;
+
+/**
+ * Benchmarks the per-task overhead of {@link Parallelizer} with micro tasks, against a bare
+ * semaphore-bounded executor that does no bookkeeping for cancellation or failure propagation.
+ */
+public class ParallelizerBenchmark {
+  private static final int TASKS = 10_000;
+
+  @Param({"8", "64", "256"})
+  int concurrency;
+
+  private ExecutorService executor;
+  private final AtomicLong sink = new AtomicLong();
+
+  @BeforeExperiment
+  void setUp() {
+    executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  @AfterExperiment
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  long parallelize(int n) throws InterruptedException {
+    Parallelizer parallelizer = new Parallelizer(executor, concurrency);
+    for (int i = 0; i < n; i++) {
+      parallelizer.parallelize(IntStream.range(0, TASKS).boxed(), t -> sink.addAndGet(t));
+    }
+    return sink.get();
+  }
+
+  @Benchmark
+  long parallelizeInChunks(int n) throws InterruptedException {
+    Parallelizer parallelizer = new Parallelizer(executor, concurrency);
+    for (int i = 0; i < n; i++) {
+      parallelizer.parallelizeInChunks(
+          IntStream.range(0, TASKS).boxed(), 100, t -> sink.addAndGet(t));
+    }
+    return sink.get();
+  }
+
+  @Benchmark
+  long semaphoreBoundedExecutor(int n) throws Exception {
+    for (int i = 0; i < n; i++) {
+      Semaphore semaphore = new Semaphore(concurrency);
+      Future<?> last = null;
+      for (int t = 0; t < TASKS; t++) {
+        semaphore.acquire();
+        long value = t;
+        last = executor.submit(() -> {
+          try {
+            sink.addAndGet(value);
+          } finally {
+            semaphore.release();
+          }
+        });
+      }
+      semaphore.acquire(concurrency);
+      last.get();
+    }
+    return sink.get();
+  }
+}
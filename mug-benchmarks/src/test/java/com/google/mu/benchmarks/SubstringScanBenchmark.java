@@ -0,0 +1,83 @@
+/*****************************************************************************
+ * ------------------------------------------------------------------------- *
+ * Licensed under the Apache License, Version 2.0 (the "License");           *
+ * you may not use this file except in compliance with the License.          *
+ * You may obtain a copy of the License at                                   *
+ *                                                                           *
+ * http://www.apache.org/licenses/LICENSE-2.0                                *
+ *                                                                           *
+ * Unless required by applicable law or agreed to in writing, software       *
+ * distributed under the License is distributed on an "AS IS" BASIS,         *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  *
+ * See the License for the specific language governing permissions and       *
+ * limitations under the License.                                            *
+ *****************************************************************************/
+package com.google.mu.benchmarks;
+
+import static com.google.mu.util.Substring.consecutive;
+import static com.google.mu.util.Substring.first;
+
+import com.google.caliper.Benchmark;
+import com.google.mu.util.CharPredicate;
+
+/**
+ * Benchmarks for scanning Latin-1 input with char predicates.
+ *
+ * <p>Compares {@link CharPredicate#is} predicates, which {@link com.google.mu.util.Substring}
+ * routes to {@link String#indexOf(int)}, against equivalent lambdas that have to be tested char by
+ * char; and composite predicates with and without {@link CharPredicate#precomputed}.
+ *
+ * <p>This measures {@code is()} against a lambda, not a vectorized implementation: there is no
+ * Vector API code in mug. Whatever SIMD speedup shows up comes from the JIT intrinsic behind
+ * {@code String.indexOf()}, and depends on the JDK and CPU.
+ */
+public class SubstringScanBenchmark {
+  private static final String INPUT = latin1Input(64 * 1024);
+  private static final CharPredicate COMPOSITE =
+      CharPredicate.range('0', '9').or(CharPredicate.ALPHA).or(CharPredicate.anyOf(" ,;")).not();
+
+  @Benchmark
+  long firstSingleChar(int n) {
+    long count = 0;
+    for (int i = 0; i < n; i++) {
+      count += first(CharPredicate.is('|')).repeatedly().match(INPUT).count();
+    }
+    return count;
+  }
+
+  @Benchmark
+  long firstLambda(int n) {
+    long count = 0;
+    for (int i = 0; i < n; i++) {
+      count += first((char c) -> c == '|').repeatedly().match(INPUT).count();
+    }
+    return count;
+  }
+
+  @Benchmark
+  long consecutiveComposite(int n) {
+    long count = 0;
+    for (int i = 0; i < n; i++) {
+      count += consecutive(COMPOSITE).repeatedly().match(INPUT).count();
+    }
+    return count;
+  }
+
+  @Benchmark
+  long consecutivePrecomputed(int n) {
+    CharPredicate precomputed = COMPOSITE.precomputed();
+    long count = 0;
+    for (int i = 0; i < n; i++) {
+      count += consecutive(precomputed).repeatedly().match(INPUT).count();
+    }
+    return count;
+  }
+
+  private static String latin1Input(int length) {
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = 0; builder.length() < length; i++) {
+      builder.append("café ").append(i).append(i % 50 == 0 ? "|" : ", ");
+    }
+    return builder.toString();
+  }
+}
@@ -7,6 +7,7 @@ import com.google.common.base.Strings;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.fixes.Fix;
 import com.google.errorprone.matchers.Description;
 import com.sun.source.tree.MemberReferenceTree;
 import com.sun.source.tree.MethodInvocationTree;
@@ -127,6 +128,13 @@ abstract class AbstractBugChecker extends BugChecker {
       this.args = args.clone();
     }
 
+    /** Attaches {@code fix} to the reported description. */
+    @CanIgnoreReturnValue
+    ErrorReport withFix(Fix fix) {
+      description.addFix(fix);
+      return this;
+    }
+
     private static <T extends Tree> Description checkAndReportError(
         T tree, VisitorState state, Checker<? super T> impl) {
       try {
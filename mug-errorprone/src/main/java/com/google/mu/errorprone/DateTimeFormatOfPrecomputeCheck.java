@@ -0,0 +1,101 @@
+package com.google.mu.errorprone;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.matchers.Matchers.staticMethod;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.DateTimeException;
+import java.time.format.DateTimeFormatter;
+
+import com.google.auto.service.AutoService;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.google.mu.time.DateTimeFormats;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+
+/**
+ * Suggests replacing {@code DateTimeFormats.formatOf("<constant example>")} with the equivalent
+ * {@code DateTimeFormatter} constant or {@code DateTimeFormatter.ofPattern()} call, so that the
+ * format is inferred at build time instead of at class initialization.
+ *
+ * <p>Disabled by default, because a {@code formatOf()} call spells out the example, which is
+ * arguably more readable than the pattern. Opt in with {@code
+ * -XepOpt:DateTimeFormatOfPrecomputeCheck:Enabled=true}, and apply the suggested fixes with {@code
+ * -XepPatchChecks:DateTimeFormatOfPrecomputeCheck}. Invalid examples are left to {@link
+ * DateTimeExampleStringCheck}.
+ */
+@BugPattern(
+    summary =
+        "DateTimeFormats.formatOf() with a constant example can be replaced by the inferred"
+            + " DateTimeFormatter.",
+    severity = SUGGESTION)
+@AutoService(BugChecker.class)
+public final class DateTimeFormatOfPrecomputeCheck extends AbstractBugChecker
+    implements AbstractBugChecker.MethodInvocationCheck {
+  private static final Matcher<ExpressionTree> MATCHER =
+      staticMethod().onClass("com.google.mu.time.DateTimeFormats").named("formatOf");
+
+  private final boolean enabled;
+
+  public DateTimeFormatOfPrecomputeCheck(ErrorProneFlags flags) {
+    this.enabled = flags.getBoolean("DateTimeFormatOfPrecomputeCheck:Enabled").orElse(false);
+  }
+
+  @Override
+  public void checkMethodInvocation(MethodInvocationTree tree, VisitorState state)
+      throws ErrorReport {
+    if (!enabled || !MATCHER.matches(tree, state) || tree.getArguments().size() != 1) {
+      return;
+    }
+    String example = ASTHelpers.constValue(tree.getArguments().get(0), String.class);
+    if (example == null) {
+      return;
+    }
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String formatterType =
+        SuggestedFixes.qualifyType(state, fix, "java.time.format.DateTimeFormatter");
+    String replacement;
+    try {
+      DateTimeFormatter formatter = DateTimeFormats.formatOf(example);
+      String constantName = predefinedConstantName(formatter);
+      if (constantName != null) {
+        replacement = formatterType + "." + constantName;
+      } else {
+        String pattern = DateTimeFormats.patternOf(example);
+        if (!DateTimeFormatter.ofPattern(pattern).toString().equals(formatter.toString())) {
+          return;
+        }
+        replacement = formatterType + ".ofPattern(" + state.getConstantExpression(pattern) + ")";
+      }
+    } catch (IllegalArgumentException | DateTimeException e) {
+      return;
+    }
+    throw checkingOn(tree)
+        .report("the inferred format can be precomputed as %s", replacement)
+        .withFix(fix.replace(tree, replacement).build());
+  }
+
+  private static String predefinedConstantName(DateTimeFormatter formatter) {
+    for (Field field : DateTimeFormatter.class.getFields()) {
+      if (Modifier.isStatic(field.getModifiers())
+          && field.getType() == DateTimeFormatter.class) {
+        try {
+          if (field.get(null) == formatter) {
+            return field.getName();
+          }
+        } catch (IllegalAccessException e) {
+          throw new AssertionError(e);
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,136 @@
+package com.google.mu.errorprone;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class DateTimeFormatOfPrecomputeCheckTest {
+  private static final String ENABLED = "-XepOpt:DateTimeFormatOfPrecomputeCheck:Enabled=true";
+
+  private final BugCheckerRefactoringTestHelper refactoringHelper =
+      BugCheckerRefactoringTestHelper.newInstance(
+              DateTimeFormatOfPrecomputeCheck.class, getClass())
+          .setArgs(ENABLED);
+  private final CompilationTestHelper helper =
+      CompilationTestHelper.newInstance(DateTimeFormatOfPrecomputeCheck.class, getClass())
+          .setArgs(ENABLED);
+
+  @Test
+  public void inferredPattern_replacedWithOfPattern() {
+    refactoringHelper
+        .addInputLines(
+            "Test.java",
+            "import static com.google.mu.time.DateTimeFormats.formatOf;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  private static final DateTimeFormatter FORMAT = formatOf(\"2023-10-02 10:10:10\");",
+            "}")
+        .addOutputLines(
+            "Test.java",
+            "import static com.google.mu.time.DateTimeFormats.formatOf;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  private static final DateTimeFormatter FORMAT =",
+            "      DateTimeFormatter.ofPattern(\"yyyy-MM-dd HH:mm:ss\");",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void placeholderPattern_replacedWithOfPattern() {
+    refactoringHelper
+        .addInputLines(
+            "Test.java",
+            "import com.google.mu.time.DateTimeFormats;",
+            "class Test {",
+            "  Object format = DateTimeFormats.formatOf(\"<2023-10-02> HH:mm\");",
+            "}")
+        .addOutputLines(
+            "Test.java",
+            "import com.google.mu.time.DateTimeFormats;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  Object format = DateTimeFormatter.ofPattern(\"yyyy-MM-dd HH:mm\");",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void isoExample_replacedWithPredefinedConstant() {
+    refactoringHelper
+        .addInputLines(
+            "Test.java",
+            "import static com.google.mu.time.DateTimeFormats.formatOf;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  private static final DateTimeFormatter FORMAT = formatOf(\"2023-10-02\");",
+            "}")
+        .addOutputLines(
+            "Test.java",
+            "import static com.google.mu.time.DateTimeFormats.formatOf;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  private static final DateTimeFormatter FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void disabledByDefault() {
+    CompilationTestHelper.newInstance(DateTimeFormatOfPrecomputeCheck.class, getClass())
+        .addSourceLines(
+            "Test.java",
+            "import static com.google.mu.time.DateTimeFormats.formatOf;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  private static final DateTimeFormatter FORMAT = formatOf(\"2023/10/02\");",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void nonConstantExample_noMatch() {
+    helper
+        .addSourceLines(
+            "Test.java",
+            "import static com.google.mu.time.DateTimeFormats.formatOf;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  DateTimeFormatter format(String example) {",
+            "    return formatOf(example);",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void invalidExample_noMatch() {
+    helper
+        .addSourceLines(
+            "Test.java",
+            "import static com.google.mu.time.DateTimeFormats.formatOf;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  private static final DateTimeFormatter FORMAT = formatOf(\"10/2/2023 10:10:10\");",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  public void constantExample_suggestionReported() {
+    helper
+        .addSourceLines(
+            "Test.java",
+            "import static com.google.mu.time.DateTimeFormats.formatOf;",
+            "import java.time.format.DateTimeFormatter;",
+            "class Test {",
+            "  private static final DateTimeFormatter FORMAT =",
+            "      // BUG: Diagnostic contains: DateTimeFormatter.ofPattern(\"yyyy/MM/dd\")",
+            "      formatOf(\"2023/10/02\");",
+            "}")
+        .doTest();
+  }
+}
@@ -36,6 +36,8 @@ import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 import com.google.common.base.CharMatcher;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.UnsignedInteger;
 import com.google.common.primitives.UnsignedLong;
@@ -91,6 +93,10 @@ public final class SafeQuery {
    * @since 8.1
    */
   public static final SafeQuery EMPTY = new SafeQuery("");
+  /** Templates passed to {@link #of} are compile-time constants, so parse each only once. */
+  static final Cache<String, Template<SafeQuery>> TEMPLATES =
+      CacheBuilder.newBuilder().maximumSize(1000).recordStats().build();
+
   private static final CharMatcher ILLEGAL_IDENTIFIER_CHARS = anyOf("'\"`()[]{}\\~!@$^*,/?;").or(javaIsoControl());
 
   private final String query;
@@ -103,7 +109,12 @@ public final class SafeQuery {
   @SuppressWarnings("StringFormatArgsCheck") // protected by @TemplateFormatMethod
   @TemplateFormatMethod
   public static SafeQuery of(@CompileTimeConstant @TemplateString String query, Object... args) {
-    return template(query).with(args);
+    Template<SafeQuery> parsed = TEMPLATES.getIfPresent(query);
+    if (parsed == null) {
+      parsed = template(query);
+      TEMPLATES.put(query, parsed);
+    }
+    return parsed.with(args);
   }
 
   /**
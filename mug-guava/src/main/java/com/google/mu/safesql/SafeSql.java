@@ -54,6 +54,8 @@ import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
@@ -347,6 +349,10 @@ public final class SafeSql {
   private static final SafeSql TRUE = new SafeSql("(1 = 1)");
   private static final StringFormat.Template<SafeSql> PARAM = template("{param}");
 
+  /** Templates passed to {@link #of} are compile-time constants, so parse each only once. */
+  static final Cache<String, Template<SafeSql>> TEMPLATES =
+      CacheBuilder.newBuilder().maximumSize(1000).recordStats().build();
+
   /** An empty SQL */
   public static final SafeSql EMPTY = new SafeSql("");
 
@@ -392,7 +398,12 @@ public final class SafeSql {
   @SuppressWarnings("StringFormatArgsCheck") // protected by @TemplateFormatMethod
   @TemplateFormatMethod
   public static SafeSql of(@TemplateString @CompileTimeConstant String template, Object... params) {
-    return template(template).with(params);
+    Template<SafeSql> parsed = TEMPLATES.getIfPresent(template);
+    if (parsed == null) {
+      parsed = template(template);
+      TEMPLATES.put(template, parsed);
+    }
+    return parsed.with(params);
   }
 
   /**
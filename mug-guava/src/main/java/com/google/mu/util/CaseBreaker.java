@@ -15,20 +15,23 @@
 package com.google.mu.util;
 
 import static com.google.common.base.CaseFormat.LOWER_UNDERSCORE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.mu.util.CharPredicate.ALPHA;
 import static com.google.mu.util.CharPredicate.ASCII;
 import static com.google.mu.util.Substring.END;
 import static com.google.mu.util.Substring.first;
 import static com.google.mu.util.Substring.upToIncluding;
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.mapping;
 
-import java.util.stream.Collector;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import com.google.common.base.Ascii;
 import com.google.common.base.CaseFormat;
 import com.google.common.base.CharMatcher;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.mu.annotations.RequiresGuava;
 
@@ -51,6 +54,13 @@ import com.google.mu.annotations.RequiresGuava;
 public final class CaseBreaker {
   private static final CharPredicate NUM = CharPredicate.range('0', '9');
 
+  // Ascii char matchers are faster than the default.
+  private static final CharPredicate TO_CASE_DELIMITER = CharMatcher.anyOf("_-")::matches;
+  private static final CaseBreaker TO_CASE_BREAKER =
+      new CaseBreaker(TO_CASE_DELIMITER, NUM.or(Ascii::isLowerCase));
+  private static final Substring.RepeatingPattern TO_CASE_WORDS =
+      Substring.consecutive(ALPHA.or(NUM).or(TO_CASE_DELIMITER)).repeatedly();
+
   /** For example, the '_' and '-' in snake_case and dash-case. */
   private final CharPredicate punctuation;
 
@@ -123,6 +133,50 @@ public final class CaseBreaker {
         .flatMap(upToIncluding(lowerTail.or(END)).repeatedly()::from);
   }
 
+  /**
+   * Breaks {@code text} into the same words as {@link #breakCase(CharSequence)} does, but instead
+   * of creating a string per word, passes the {@code [beginIndex, endIndex)} index range of each
+   * word to {@code consumer}, in order. For example:
+   *
+   * <pre>{@code
+   * new CaseBreaker().forEachWord("userId", (b, e) -> ...)  => (0, 4), (4, 6)
+   * }</pre>
+   *
+   * <p>Allocation free. Useful in hot loops where per-word strings are unnecessary.
+   *
+   * @since 8.6
+   */
+  public void forEachWord(CharSequence text, WordConsumer consumer) {
+    checkNotNull(text);
+    checkNotNull(consumer);
+    int length = text.length();
+    int wordStart = -1;
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (punctuation.test(c)) {
+        if (wordStart >= 0) {
+          consumer.acceptWord(wordStart, i);
+          wordStart = -1;
+        }
+        continue;
+      }
+      if (wordStart < 0) {
+        wordStart = i;
+      }
+      // A lower case char followed by a non-lower case char concludes a camelCase word.
+      if (camelLower.test(c) && i + 1 < length) {
+        char next = text.charAt(i + 1);
+        if (!camelLower.test(next) && !punctuation.test(next)) {
+          consumer.acceptWord(wordStart, i + 1);
+          wordStart = -1;
+        }
+      }
+    }
+    if (wordStart >= 0) {
+      consumer.acceptWord(wordStart, length);
+    }
+  }
+
   /**
    * Converts {@code input} string to using the given {@link CaseFormat}. {@code input} can be in
    * {@code snake_case}, {@code lowerCamelCase}, {@code UpperCamelCase}, {@code CONSTANT_CASE},
@@ -142,16 +196,60 @@ public final class CaseBreaker {
    * using e.g. {@link Character#toLowerCase}.
    */
   public static String toCase(CaseFormat caseFormat, String input) {
-    // Ascii char matchers are faster than the default.
-    CharPredicate caseDelimiter = CharMatcher.anyOf("_-")::matches;
-    CaseBreaker breaker = new CaseBreaker(caseDelimiter, NUM.or(Ascii::isLowerCase));
-    Collector<String, ?, String> toSnakeCase =
-        mapping(Ascii::toLowerCase, joining("_")); // first convert to snake_case
-    Substring.RepeatingPattern words =
-        Substring.consecutive(ALPHA.or(NUM).or(caseDelimiter)).repeatedly();
-    return caseFormat.equals(LOWER_UNDERSCORE)
-        ? words.replaceAllFrom(input, w -> breaker.breakCase(w).collect(toSnakeCase))
-        : words.replaceAllFrom(
-            input, w -> LOWER_UNDERSCORE.to(caseFormat, breaker.breakCase(w).collect(toSnakeCase)));
+    checkNotNull(caseFormat);
+    return TO_CASE_WORDS.replaceAllFrom(
+        input,
+        w -> {
+          String snakeCase = toSnakeCase(w); // first convert to snake_case
+          return caseFormat.equals(LOWER_UNDERSCORE)
+              ? snakeCase
+              : LOWER_UNDERSCORE.to(caseFormat, snakeCase);
+        });
+  }
+
+  /**
+   * Returns a function equivalent to {@code input -> toCase(caseFormat, input)}, but remembers up
+   * to {@code maxCacheSize} most recently converted strings. Useful when a small fixed set of
+   * identifiers (such as field names in code generators or JSON mappers) are converted repeatedly.
+   *
+   * <p>The returned function is thread safe.
+   *
+   * @throws IllegalArgumentException if {@code maxCacheSize} is negative
+   * @since 8.6
+   */
+  public static Function<String, String> toCaseFunction(CaseFormat caseFormat, int maxCacheSize) {
+    checkNotNull(caseFormat);
+    checkArgument(maxCacheSize >= 0, "negative maxCacheSize: %s", maxCacheSize);
+    LoadingCache<String, String> cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxCacheSize)
+            .build(CacheLoader.from(input -> toCase(caseFormat, input)));
+    return cache::getUnchecked;
+  }
+
+  private static String toSnakeCase(CharSequence identifier) {
+    StringBuilder builder = new StringBuilder(identifier.length() + 4);
+    TO_CASE_BREAKER.forEachWord(
+        identifier,
+        (begin, end) -> {
+          if (builder.length() > 0) {
+            builder.append('_');
+          }
+          for (int i = begin; i < end; i++) {
+            builder.append(Ascii.toLowerCase(identifier.charAt(i)));
+          }
+        });
+    return builder.toString();
+  }
+
+  /**
+   * Receives the index range of each word found by {@link CaseBreaker#forEachWord}.
+   *
+   * @since 8.6
+   */
+  @FunctionalInterface
+  public interface WordConsumer {
+    /** Accepts the word in the range of {@code [beginIndex, endIndex)} of the input string. */
+    void acceptWord(int beginIndex, int endIndex);
   }
 }
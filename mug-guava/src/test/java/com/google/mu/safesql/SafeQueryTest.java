@@ -34,6 +34,19 @@ public final class SafeQueryTest {
     System.setProperty("com.google.mu.safesql.SafeQuery.trusted_sql_type", TrustedSql.class.getName());
   }
 
+  @Test
+  public void of_templateParsedOnce() {
+    long misses = SafeQuery.TEMPLATES.stats().missCount();
+    long hits = SafeQuery.TEMPLATES.stats().hitCount();
+    for (String col : asList("a", "b")) {
+      SafeQuery cols = SafeQuery.of("`{col}`", col);
+      assertThat(SafeQuery.of("SELECT {cols} FROM cached_tbl", cols))
+          .isEqualTo(SafeQuery.of("SELECT `{col}` FROM cached_tbl", col));
+    }
+    assertThat(SafeQuery.TEMPLATES.stats().missCount()).isAtMost(misses + 3);
+    assertThat(SafeQuery.TEMPLATES.stats().hitCount()).isAtLeast(hits + 1);
+  }
+
   @Test
   public void emptyTemplate() {
     assertThat(template("").with()).isEqualTo(SafeQuery.of(""));
@@ -19,6 +19,19 @@ import com.google.testing.junit.testparameterinjector.TestParameterInjector;
 
 @RunWith(TestParameterInjector.class)
 public class SafeSqlTest {
+  @Test
+  public void of_templateParsedOnce() {
+    long misses = SafeSql.TEMPLATES.stats().missCount();
+    long hits = SafeSql.TEMPLATES.stats().hitCount();
+    for (String col : asList("a", "b")) {
+      SafeSql cols = SafeSql.of("{col}", col);
+      assertThat(SafeSql.of("SELECT {cols} FROM cached_tbl", cols))
+          .isEqualTo(SafeSql.of("SELECT {col} FROM cached_tbl", col));
+    }
+    assertThat(SafeSql.TEMPLATES.stats().missCount()).isAtMost(misses + 3);
+    assertThat(SafeSql.TEMPLATES.stats().hitCount()).isAtLeast(hits + 1);
+  }
+
   @Test
   public void emptyTemplate() {
     assertThat(template("").with()).isEqualTo(SafeSql.of(""));
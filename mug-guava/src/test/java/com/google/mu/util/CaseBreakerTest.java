@@ -3,6 +3,13 @@ package com.google.mu.util;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
 
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -232,6 +239,43 @@ public final class CaseBreakerTest {
         .isEqualTo("调用：case_breaker.to_case()");
   }
 
+  @Test public void testForEachWord_sameAsBreakCase() {
+    String[] inputs = {
+      "", "x", "A", "userId", "HelloWorld", "2sigmaOffice", "αβΑβΤττ", "A B CorABC", "IPv6OrIPV4",
+      "SplitURLsByCase", "orderID", "2_WORD2WORD3", "order_ID", "this-Is-A_MixedCase", "--_",
+      "call CaseBreaker.toCase()", "🅣ⓗⓔ🅤🅡🅛ⓢ", "UpgradeIPv4ToIPv6", " trailing space "
+    };
+    CaseBreaker breaker = new CaseBreaker();
+    for (String input : inputs) {
+      List<String> words = new ArrayList<>();
+      breaker.forEachWord(input, (b, e) -> words.add(input.substring(b, e)));
+      assertThat(words).isEqualTo(breaker.breakCase(input).collect(toList()));
+    }
+  }
+
+  @Test public void testForEachWord_customCaseBreaker() {
+    CaseBreaker breaker = new CaseBreaker().withPunctuationChars(CharMatcher.is('–'));
+    List<String> words = new ArrayList<>();
+    breaker.forEachWord("1–2–3", (b, e) -> words.add("1–2–3".substring(b, e)));
+    assertThat(words).containsExactly("1", "2", "3").inOrder();
+  }
+
+  @Test public void testToCaseFunction() {
+    Function<String, String> toSnakeCase =
+        CaseBreaker.toCaseFunction(CaseFormat.LOWER_UNDERSCORE, 10);
+    assertThat(toSnakeCase.apply("userId")).isEqualTo("user_id");
+    assertThat(toSnakeCase.apply("userId")).isEqualTo("user_id");
+    assertThat(toSnakeCase.apply("FooBAR")).isEqualTo("foo_bar");
+    assertThat(CaseBreaker.toCaseFunction(CaseFormat.UPPER_CAMEL, 0).apply("user_id"))
+        .isEqualTo("UserId");
+  }
+
+  @Test public void testToCaseFunction_negativeCacheSize() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> CaseBreaker.toCaseFunction(CaseFormat.LOWER_CAMEL, -1));
+  }
+
   @Test public void testNulls() {
     new NullPointerTester().testAllPublicStaticMethods(CaseBreaker.class);
     new NullPointerTester().testAllPublicInstanceMethods(new CaseBreaker());
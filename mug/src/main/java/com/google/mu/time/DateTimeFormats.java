@@ -24,6 +24,7 @@ import static com.google.mu.util.Substring.leading;
 import static com.google.mu.util.Substring.BoundStyle.INCLUSIVE;
 import static com.google.mu.util.stream.BiCollectors.maxByKey;
 import static com.google.mu.util.stream.BiStream.biStream;
+import static java.lang.Math.min;
 import static java.util.Arrays.asList;
 import static java.util.Comparator.comparingInt;
 import static java.util.stream.Collectors.toList;
@@ -32,20 +33,27 @@ import static java.util.stream.Collectors.toMap;
 import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
 import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.ResolverStyle;
 import java.time.temporal.TemporalQuery;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import com.google.mu.collect.PrefixSearchTable;
@@ -120,7 +128,8 @@ public final class DateTimeFormats {
   private static final CharPredicate DELIMITER = anyOf(" ,;");
 
   /** Punctuation chars, such as '/', ':', '-' are essential part of the pattern syntax. */
-  private static final CharPredicate PUNCTUATION = DIGIT.or(ALPHA).or(DELIMITER).not();
+  private static final CharPredicate PUNCTUATION =
+      DIGIT.or(ALPHA).or(DELIMITER).not();
   private static final Substring.RepeatingPattern TOKENIZER =
       Stream.of(consecutive(DIGIT), consecutive(ALPHA), first(PUNCTUATION))
           .collect(firstOccurrence())
@@ -186,6 +195,20 @@ public final class DateTimeFormats {
           .append(forExample("20111203"), DateTimeFormatter.BASIC_ISO_DATE)
           .toMap();
 
+  /**
+   * The formatters already inferred for the parse methods, by signature. Signatures that need the
+   * actual digits to resolve (such as dd/MM vs. MM/dd) aren't cached.
+   */
+  private static final BoundedCache<List<?>, DateTimeFormatter> SIGNATURE_FORMATTERS =
+      new BoundedCache<>(1000);
+
+  /** Inferred patterns compiled to formatters. */
+  private static final BoundedCache<String, DateTimeFormatter> PATTERN_FORMATTERS =
+      new BoundedCache<>(1000);
+
+  /** Values of a column parsed by one task in {@link #parseColumnInParallel}. */
+  private static final int COLUMN_CHUNK_SIZE = 4096;
+
   private static final PrefixSearchTable<Object, String> PREFIX_TABLE =
       PrefixSearchTable.<Object, String>builder()
           .addAll(LOCAL_DATE_PATTERNS)
@@ -260,40 +283,72 @@ public final class DateTimeFormats {
               }
               return fmt;
             })
-        .orElseGet(
-            () -> {
-              AtomicInteger placeholderCount = new AtomicInteger();
-              String pattern =
-                  PLACEHOLDERS.replaceAllFrom(
-                      example,
-                      placeholder -> {
-                        placeholderCount.incrementAndGet();
-                        return inferDateTimePattern(placeholder.skip(1, 1).toString());
-                      });
-              try {
-                if (placeholderCount.get() > 0) {
-                  // There is at least 1 placeholder. The input isn't a pure datetime "example".
-                  // So we can't validate using parse().
-                  return DateTimeFormatter.ofPattern(pattern);
-                }
-                pattern = inferDateTimePattern(example, signature);
-                DateTimeFormatter fmt = DateTimeFormatter.ofPattern(pattern);
-                fmt.withResolverStyle(ResolverStyle.STRICT).parse(example);
-                return fmt;
-              } catch (DateTimeParseException e) {
-                throw new DateTimeException(
-                    "invalid date time example: " + example + " (" + pattern + ")", e);
-              }
+        .orElseGet(() -> ofPattern(inferPattern(example, signature)));
+  }
+
+  /**
+   * Infers and returns the {@link DateTimeFormatter} pattern string based on {@code example}, such
+   * that {@code DateTimeFormatter.ofPattern(patternOf(example))} parses the same strings as {@code
+   * formatOf(example)} does, except when {@link #formatOf} resolves {@code example} to one of the
+   * predefined ISO or RFC 1123 formatters.
+   *
+   * <p>Useful for build-time tools to precompute the pattern of a constant example, so that the
+   * format doesn't need to be inferred at runtime.
+   *
+   * @throws DateTimeException if {@code example} is invalid or the pattern isn't supported.
+   * @since 8.6
+   */
+  public static String patternOf(String example) {
+    return inferPattern(example, forExample(example));
+  }
+
+  private static String inferPattern(String example, List<?> signature) {
+    AtomicInteger placeholderCount = new AtomicInteger();
+    String pattern =
+        PLACEHOLDERS.replaceAllFrom(
+            example,
+            placeholder -> {
+              placeholderCount.incrementAndGet();
+              return inferDateTimePattern(placeholder.skip(1, 1).toString());
             });
+    if (placeholderCount.get() > 0) {
+      // There is at least 1 placeholder. The input isn't a pure datetime "example".
+      // So we can't validate using parse().
+      ofPattern(pattern);
+      return pattern;
+    }
+    pattern = inferDateTimePattern(example, signature);
+    try {
+      ofPattern(pattern).withResolverStyle(ResolverStyle.STRICT).parse(example);
+    } catch (DateTimeParseException e) {
+      throw new DateTimeException(
+          "invalid date time example: " + example + " (" + pattern + ")", e);
+    }
+    return pattern;
   }
 
   private static <T> T parseDateTime(String dateTimeString, TemporalQuery<T> query) {
+    return inferFormatter(dateTimeString).parse(dateTimeString, query);
+  }
+
+  private static DateTimeFormatter inferFormatter(String dateTimeString) {
     List<?> signature = forExample(dateTimeString);
+    if (LocalDateRule.dependsOnDigits(signature)) {
+      return inferFormatter(dateTimeString, signature);
+    }
+    return SIGNATURE_FORMATTERS.get(signature, s -> inferFormatter(dateTimeString, s));
+  }
+
+  private static DateTimeFormatter inferFormatter(String dateTimeString, List<?> signature) {
     return lookup(RFC_1123_FORMATTERS, signature)
         .orElseGet(() -> lookup(ISO_DATE_FORMATTERS, signature)
         .orElseGet(() -> lookup(ISO_DATE_TIME_FORMATTERS, forExample(removeNanosecondsPart(dateTimeString)))
-        .orElseGet(() -> DateTimeFormatter.ofPattern(inferDateTimePattern(dateTimeString, signature)))))
-        .parse(dateTimeString, query);
+        .orElseGet(() -> ofPattern(inferDateTimePattern(dateTimeString, signature)))));
+  }
+
+  /** Returns the formatter of {@code pattern}, compiled only once for the same pattern. */
+  private static DateTimeFormatter ofPattern(String pattern) {
+    return PATTERN_FORMATTERS.get(pattern, DateTimeFormatter::ofPattern);
   }
 
   /**
@@ -331,7 +386,8 @@ public final class DateTimeFormats {
    * @since 8.0
    */
   public static Instant parseToInstant(String dateTimeString) {
-    return parseDateTime(dateTimeString, Instant::from);
+    Instant instant = Rfc3339.toInstant(dateTimeString);
+    return instant == null ? parseDateTime(dateTimeString, Instant::from) : instant;
   }
 
   /**
@@ -362,7 +418,124 @@ public final class DateTimeFormats {
    * @since 8.0
    */
   public static OffsetDateTime parseOffsetDateTime(String dateTimeString) {
-    return parseDateTime(dateTimeString, OffsetDateTime::from);
+    OffsetDateTime dateTime = Rfc3339.toOffsetDateTime(dateTimeString);
+    return dateTime == null ? parseDateTime(dateTimeString, OffsetDateTime::from) : dateTime;
+  }
+
+  /**
+   * Parses {@code column} of date time strings into epoch milliseconds stored in {@code
+   * epochMillis} at the same indices, and returns the indices of the values that can't be parsed.
+   * For example:
+   *
+   * <pre>{@code
+   * long[] timestamps = new long[cells.size()];
+   * BitSet bad = DateTimeFormats.parseColumn(cells, timestamps);
+   * bad.stream().forEach(row -> log("bad timestamp at row " + row));
+   * }</pre>
+   *
+   * <p>Since the values of a column usually share the same layout, the formatter is inferred once,
+   * from the first value that can be parsed, and reused for the following values. Values in a
+   * different layout are reported as unparseable; pass them to {@link #parseToInstant} if they
+   * need to be parsed individually. RFC 3339 timestamps are parsed directly from the digits, and
+   * are accepted in any column.
+   *
+   * <p>Values are parsed sequentially in the calling thread. Use {@link #parseColumnInParallel}
+   * to split a large column across cores.
+   *
+   * <p>Unparseable values (including nulls) don't cause exceptions. Their slots in {@code
+   * epochMillis} are left unchanged.
+   *
+   * @return the indices of the values in {@code column} that can't be parsed
+   * @throws IllegalArgumentException if {@code epochMillis} is shorter than {@code column}
+   * @since 8.6
+   */
+  public static BitSet parseColumn(List<String> column, long[] epochMillis) {
+    checkColumnSize(column, epochMillis);
+    ColumnFormat format = new ColumnFormat();
+    BitSet failures = new BitSet();
+    int index = 0;
+    for (String value : column) {
+      if (!format.parse(value, epochMillis, index)) {
+        failures.set(index);
+      }
+      index++;
+    }
+    return failures;
+  }
+
+  /**
+   * Same as {@link #parseColumn}, except that after the first chunk of values (from which the
+   * formatter is usually inferred), the remaining chunks are parsed in parallel in the {@link
+   * java.util.concurrent.ForkJoinPool#commonPool common pool}. Only worth it for large columns,
+   * and when the common pool isn't busy with other work.
+   *
+   * @return the indices of the values in {@code column} that can't be parsed
+   * @throws IllegalArgumentException if {@code epochMillis} is shorter than {@code column}
+   * @since 8.6
+   */
+  public static BitSet parseColumnInParallel(List<String> column, long[] epochMillis) {
+    checkColumnSize(column, epochMillis);
+    String[] values = column.toArray(new String[0]);
+    ColumnFormat format = new ColumnFormat();
+    boolean[] failed = new boolean[values.length];
+    int chunks = (values.length + COLUMN_CHUNK_SIZE - 1) / COLUMN_CHUNK_SIZE;
+    IntConsumer parseChunk =
+        chunk -> {
+          int from = chunk * COLUMN_CHUNK_SIZE;
+          int to = min(from + COLUMN_CHUNK_SIZE, values.length);
+          for (int i = from; i < to; i++) {
+            failed[i] = !format.parse(values[i], epochMillis, i);
+          }
+        };
+    if (chunks > 0) {
+      parseChunk.accept(0);
+    }
+    IntStream.range(1, chunks).parallel().forEach(parseChunk);
+    BitSet failures = new BitSet();
+    for (int i = 0; i < failed.length; i++) {
+      if (failed[i]) {
+        failures.set(i);
+      }
+    }
+    return failures;
+  }
+
+  private static void checkColumnSize(List<String> column, long[] epochMillis) {
+    if (epochMillis.length < column.size()) {
+      throw new IllegalArgumentException(
+          "epochMillis (" + epochMillis.length + ") shorter than column (" + column.size() + ")");
+    }
+  }
+
+  /** The formatter shared by the values of a column, inferred from the first parseable value. */
+  private static final class ColumnFormat {
+    private volatile DateTimeFormatter formatter;
+
+    /** Stores the parsed {@code value} at {@code index}, or returns false if it can't be parsed. */
+    boolean parse(String value, long[] epochMillis, int index) {
+      if (value == null) {
+        return false;
+      }
+      try {
+        Instant instant = Rfc3339.toInstant(value);
+        if (instant == null) {
+          DateTimeFormatter inferred = formatter;
+          if (inferred == null) {
+            inferred = inferFormatter(value);
+            instant = inferred.parse(value, Instant::from);
+            formatter = inferred; // Only once it has parsed a value.
+          } else {
+            instant = inferred.parse(value, Instant::from);
+          }
+        }
+        epochMillis[index] = instant.toEpochMilli();
+        return true;
+      } catch (DateTimeException | ArithmeticException e) {
+        return false;
+      } catch (IllegalArgumentException e) { // Inferred pattern rejected by DateTimeFormatter.
+        return false;
+      }
+    }
   }
 
   static String inferDateTimePattern(String example) {
@@ -478,7 +651,12 @@ public final class DateTimeFormats {
     static Optional<DateTimeFormatter> resolveFormat(List<?> signature) {
       return resolve(signature)
           .filter((prefix, p) -> prefix.size() == 5)
-          .map((prefix, p) -> DateTimeFormatter.ofPattern(p));
+          .map((prefix, p) -> ofPattern(p));
+    }
+
+    /** Returns true if resolving {@code signature} depends on the values of its digits. */
+    static boolean dependsOnDigits(List<?> signature) {
+      return !signature.isEmpty() && RESOLUTION_TABLE.getAll(signature).findAny().isPresent();
     }
 
     private final Predicate<List<?>> predicate;
@@ -530,6 +708,165 @@ public final class DateTimeFormats {
     }
   }
 
+  /**
+   * Parses the fixed-layout RFC 3339 timestamps, such as "2011-12-03T10:15:30Z" and
+   * "2011-12-03T10:15:30.123+01:00", directly from the digits. These make up the majority of
+   * machine-generated timestamps, and would otherwise go through the much slower {@link
+   * DateTimeFormatter} parsing.
+   *
+   * <p>Returns null if the string isn't in this layout, or has any out-of-range value, in which
+   * case the general parsing path is responsible for the result or the error.
+   */
+  private static final class Rfc3339 {
+    private static final int FRACTION_INDEX = "yyyy-MM-ddTHH:mm:ss".length();
+    private static final long DAYS_0000_TO_1970 = 719528;
+    private static final int NO_OFFSET = Integer.MIN_VALUE;
+
+    static Instant toInstant(String string) {
+      int offsetIndex = offsetIndex(string);
+      if (offsetIndex < 0) {
+        return null;
+      }
+      long epochSecond = localEpochSecond(string);
+      int offsetSeconds = offsetSeconds(string, offsetIndex);
+      if (epochSecond == Long.MIN_VALUE || offsetSeconds == NO_OFFSET) {
+        return null;
+      }
+      return Instant.ofEpochSecond(epochSecond - offsetSeconds, nanos(string, offsetIndex));
+    }
+
+    static OffsetDateTime toOffsetDateTime(String string) {
+      int offsetIndex = offsetIndex(string);
+      // Instants with "Z" don't carry the offset through the general path. Leave them to it.
+      if (offsetIndex < 0 || string.charAt(offsetIndex) == 'Z') {
+        return null;
+      }
+      long epochSecond = localEpochSecond(string);
+      int offsetSeconds = offsetSeconds(string, offsetIndex);
+      if (epochSecond == Long.MIN_VALUE || offsetSeconds == NO_OFFSET) {
+        return null;
+      }
+      ZoneOffset offset = ZoneOffset.ofTotalSeconds(offsetSeconds);
+      return OffsetDateTime.of(
+          LocalDateTime.ofEpochSecond(epochSecond, nanos(string, offsetIndex), ZoneOffset.UTC),
+          offset);
+    }
+
+    /**
+     * Returns the index of the "Z" or "+HH:mm" offset if {@code string} has the layout of
+     * "yyyy-MM-ddTHH:mm:ss[.nnnnnnnnn]" followed by the offset; or else -1.
+     */
+    private static int offsetIndex(String string) {
+      int length = string.length();
+      if (length < FRACTION_INDEX + 1
+          || string.charAt(4) != '-'
+          || string.charAt(7) != '-'
+          || string.charAt(10) != 'T'
+          || string.charAt(13) != ':'
+          || string.charAt(16) != ':') {
+        return -1;
+      }
+      int index = FRACTION_INDEX;
+      if (string.charAt(index) == '.') {
+        index++;
+        while (index < length && isDigit(string.charAt(index))) {
+          index++;
+        }
+        int fractionDigits = index - FRACTION_INDEX - 1;
+        if (fractionDigits < 1 || fractionDigits > 9) {
+          return -1;
+        }
+      }
+      if (index == length - 1 && string.charAt(index) == 'Z') {
+        return index;
+      }
+      if (index == length - 6
+          && (string.charAt(index) == '+' || string.charAt(index) == '-')
+          && string.charAt(index + 3) == ':') {
+        return index;
+      }
+      return -1;
+    }
+
+    /** Returns the epoch second of the local date time, or Long.MIN_VALUE if invalid. */
+    private static long localEpochSecond(String string) {
+      int year = digits(string, 0, 4);
+      int month = digits(string, 5, 7);
+      int day = digits(string, 8, 10);
+      int hour = digits(string, 11, 13);
+      int minute = digits(string, 14, 16);
+      int second = digits(string, 17, 19);
+      if (year < 0
+          || month < 1
+          || month > 12
+          || day < 1
+          || day > Month.of(month).length(Year.isLeap(year))
+          || hour < 0
+          || hour > 23
+          || minute < 0
+          || minute > 59
+          || second < 0
+          || second > 59) {
+        return Long.MIN_VALUE;
+      }
+      return epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + second;
+    }
+
+    /** Same as {@link LocalDate#toEpochDay}, for non-negative years. */
+    private static long epochDay(int year, int month, int day) {
+      long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+      total += (367 * month - 362) / 12 + day - 1;
+      if (month > 2) {
+        total -= Year.isLeap(year) ? 1 : 2;
+      }
+      return total - DAYS_0000_TO_1970;
+    }
+
+    private static int nanos(String string, int offsetIndex) {
+      int nanos = 0;
+      int i = FRACTION_INDEX + 1;
+      for (; i < offsetIndex; i++) {
+        nanos = nanos * 10 + (string.charAt(i) - '0');
+      }
+      for (; i < FRACTION_INDEX + 10; i++) {
+        nanos *= 10;
+      }
+      return nanos;
+    }
+
+    /** Returns the offset in seconds, or NO_OFFSET if invalid. */
+    private static int offsetSeconds(String string, int offsetIndex) {
+      char sign = string.charAt(offsetIndex);
+      if (sign == 'Z') {
+        return 0;
+      }
+      int hours = digits(string, offsetIndex + 1, offsetIndex + 3);
+      int minutes = digits(string, offsetIndex + 4, offsetIndex + 6);
+      if (hours < 0 || hours > 17 || minutes < 0 || minutes > 59) {
+        return NO_OFFSET;
+      }
+      int seconds = hours * 3600 + minutes * 60;
+      return sign == '-' ? -seconds : seconds;
+    }
+
+    /** Returns the decimal value of {@code string[from, to)}, or -1 if not all digits. */
+    private static int digits(String string, int from, int to) {
+      int value = 0;
+      for (int i = from; i < to; i++) {
+        char c = string.charAt(i);
+        if (!isDigit(c)) {
+          return -1;
+        }
+        value = value * 10 + (c - '0');
+      }
+      return value;
+    }
+
+    private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+    }
+  }
+
   private static final class Numeric {
     final String digits;
 
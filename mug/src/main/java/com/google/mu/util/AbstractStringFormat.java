@@ -25,14 +25,18 @@ import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
@@ -52,8 +56,12 @@ import com.google.mu.util.stream.MoreStreams;
  * The API of StringFormat. Allows different subclasses to use different placeholder styles.
  */
 abstract class AbstractStringFormat {
+  private static final int ESTIMATED_ARG_LENGTH = 16;
+
   private final String format;
+
   final List<String> fragments; // The string literals between placeholders
+  private final int fragmentsLength; // Total length of the fragments
   private final List<Boolean> toCapture;
   private final int numCapturingPlaceholders;
 
@@ -68,6 +76,7 @@ abstract class AbstractStringFormat {
         });
     this.format = format;
     this.fragments = delimiters.build().collect(toImmutableList());
+    this.fragmentsLength = fragments.stream().mapToInt(String::length).sum();
     this.toCapture = chop(toCapture.build().collect(toImmutableList()));
     this.numCapturingPlaceholders =
         this.fragments.size() - 1 - (int) this.toCapture.stream().filter(c -> !c).count();
@@ -227,26 +236,121 @@ abstract class AbstractStringFormat {
   private Optional<List<Substring.Match>> internalParse(
       String input, List<String> fragments, List<Boolean> toCapture) {
     checkUnformattability();
-    if (!input.startsWith(fragments.get(0))) { // first literal is the prefix
+    int[] bounds = new int[2 * numPlaceholders()];
+    if (!matchPlaceholders(input, fragments, bounds)) {
       return Optional.empty();
     }
     List<Substring.Match> builder = new ArrayList<>(numCapturingPlaceholders);
-    int inputIndex = fragments.get(0).length();
+    for (int i = 0; i < toCapture.size(); i++) {
+      if (toCapture.get(i)) {
+        int start = bounds[2 * i];
+        builder.add(Substring.Match.nonBacktrackable(input, start, bounds[2 * i + 1] - start));
+      }
+    }
+    return Optional.of(unmodifiableList(builder));
+  }
+
+  /**
+   * Parses {@code input} and stores the placeholder boundaries into {@code bounds}, with no
+   * allocation. Returns false if {@code input} doesn't match this format.
+   */
+  final boolean parseInto(CharSequence input, int[] bounds) {
+    requireNonNull(input);
+    requireNonNull(bounds);
+    checkUnformattability();
+    return matchPlaceholders(input, fragments, bounds);
+  }
+
+  /**
+   * Scans {@code input} for occurrences of this format the same way as {@link #scanAsLists}, with
+   * no allocation. The placeholder boundaries of each occurrence are stored into {@code bounds}
+   * before calling {@code onMatch}, until {@code onMatch} returns false or no more occurrence is
+   * found. Returns the number of times {@code onMatch} is called.
+   */
+  final int scanInto(CharSequence input, int[] bounds, BooleanSupplier onMatch) {
+    requireNonNull(input);
+    requireNonNull(bounds);
+    requireNonNull(onMatch);
+    if (format.isEmpty()) {
+      for (int i = 0; i <= input.length(); i++) {
+        if (!onMatch.getAsBoolean()) {
+          return i + 1;
+        }
+      }
+      return input.length() + 1;
+    }
+    String prefix = fragments.get(0);
     int numPlaceholders = numPlaceholders();
+    int count = 0;
+    for (int inputIndex = 0; inputIndex < input.length() || count == 0; ) {
+      inputIndex = Substring.indexOf(input, prefix, inputIndex);
+      if (inputIndex < 0) {
+        break;
+      }
+      inputIndex += prefix.length();
+      for (int i = 1; i <= numPlaceholders; i++) {
+        String literal = fragments.get(i);
+        // Always search left-to-right. The last placeholder at the end of format is suffix.
+        int literalIndex =
+            i == numPlaceholders && literal.isEmpty()
+                ? input.length()
+                : Substring.indexOf(input, literal, inputIndex);
+        if (literalIndex < 0) {
+          return count;
+        }
+        bounds[2 * i - 2] = inputIndex;
+        bounds[2 * i - 1] = literalIndex;
+        inputIndex = literalIndex + literal.length();
+      }
+      count++;
+      if (!onMatch.getAsBoolean()) {
+        break;
+      }
+    }
+    return count;
+  }
+
+  final boolean isCapturing(int placeholderIndex) {
+    return toCapture.get(placeholderIndex);
+  }
+
+  final int numCapturingPlaceholders() {
+    return numCapturingPlaceholders;
+  }
+
+  /**
+   * Matches {@code input} against {@code fragments} and stores the {@code [start, end)} indices of
+   * the i-th placeholder at {@code bounds[2 * i]} and {@code bounds[2 * i + 1]}. The first fragment
+   * is the prefix and the last fragment is the suffix; the fragments in between are searched
+   * left-to-right.
+   */
+  private static boolean matchPlaceholders(
+      CharSequence input, List<String> fragments, int[] bounds) {
+    String prefix = fragments.get(0);
+    if (!Substring.startsWith(input, prefix, 0)) {
+      return false;
+    }
+    int inputIndex = prefix.length();
+    int numPlaceholders = fragments.size() - 1;
     for (int i = 1; i <= numPlaceholders; i++) {
-      // subsequent delimiters are searched left-to-right; last literal is the suffix.
-      Substring.Pattern trailingLiteral =
-          i < numPlaceholders ? first(fragments.get(i)) : suffix(fragments.get(i));
-      Substring.Match placeholder = before(trailingLiteral).in(input, inputIndex).orElse(null);
-      if (placeholder == null) {
-        return Optional.empty();
+      String fragment = fragments.get(i);
+      int fragmentIndex;
+      if (i < numPlaceholders) {
+        fragmentIndex = Substring.indexOf(input, fragment, inputIndex);
+      } else {
+        fragmentIndex = input.length() - fragment.length();
+        if (!Substring.startsWith(input, fragment, fragmentIndex)) {
+          return false;
+        }
       }
-      if (toCapture.get(i - 1)) {
-        builder.add(placeholder);
+      if (fragmentIndex < inputIndex) {
+        return false;
       }
-      inputIndex = placeholder.index() + placeholder.length() + fragments.get(i).length();
+      bounds[2 * i - 2] = inputIndex;
+      bounds[2 * i - 1] = fragmentIndex;
+      inputIndex = fragmentIndex + fragment.length();
     }
-    return optional(inputIndex == input.length(), unmodifiableList(builder));
+    return inputIndex == input.length();
   }
 
   /**
@@ -807,33 +911,110 @@ abstract class AbstractStringFormat {
                 matches.get(7)));
   }
 
+  /**
+   * Scans {@code input} and writes it to {@code output} with every occurrence of this format
+   * replaced by the return value of {@code replacement}, which is called with the placeholder
+   * values of each occurrence. Returns {@code output}.
+   *
+   * <p>Unlike {@link #replaceAllFrom(String, Function)}, the result is written incrementally
+   * instead of being built up in memory, and any number of placeholders is supported.
+   *
+   * <p>If {@code replacement} returns null, the occurrence is left as is.
+   *
+   * @throws IOException if thrown by {@code output}
+   * @since 8.6
+   */
+  public final <A extends Appendable> A replaceAllFrom(
+      String input, Function<? super List<Substring.Match>, ?> replacement, A output)
+      throws IOException {
+    requireNonNull(input);
+    requireNonNull(replacement);
+    requireNonNull(output);
+    int inputIndex = appendReplaced(input, replacement, output);
+    output.append(input, inputIndex, input.length());
+    return output;
+  }
+
+  /**
+   * Reads from {@code input} and writes it to {@code output} with every occurrence of this format
+   * replaced by the return value of {@code replacement}, which is called with the placeholder
+   * values of each occurrence. Returns {@code output}.
+   *
+   * <p>Characters are read and written in chunks, so that arbitrarily large input (such as data
+   * dumps to be redacted) can be rewritten in memory proportional to the chunk size. No occurrence
+   * can be longer than {@code maxMatchLength}; and similar to {@link #scan(Reader, int,
+   * Function)}, occurrences are located by the literal fragments between placeholders.
+   *
+   * <p>If {@code replacement} returns null, the occurrence is left as is. Neither {@code input}
+   * nor {@code output} is closed.
+   *
+   * @throws IllegalArgumentException if {@code maxMatchLength} isn't positive, or if the format
+   *     string ends with a placeholder, which would extend to the end of {@code input}
+   * @throws IOException if thrown by {@code input} or {@code output}
+   * @since 8.6
+   */
+  public final <A extends Appendable> A replaceAllFrom(
+      Reader input,
+      int maxMatchLength,
+      Function<? super List<Substring.Match>, ?> replacement,
+      A output)
+      throws IOException {
+    requireNonNull(input);
+    requireNonNull(replacement);
+    requireNonNull(output);
+    return occurrenceInReader()
+        .repeatedly()
+        .replaceAllFrom(
+            input,
+            maxMatchLength,
+            occurrence -> {
+              Object replaceWith =
+                  replacement.apply(scanAsLists(occurrence.toString()).findFirst().get());
+              return replaceWith == null ? occurrence : String.valueOf(replaceWith);
+            },
+            output);
+  }
+
   final String replaceAllMatches(
       String input, Function<? super List<Substring.Match>, ?> replacement) {
-    List<int[]> matchIndices = new ArrayList<>();
-    List<List<Substring.Match>> matches =
-        matchRepeatedly(input, (start, end) -> matchIndices.add(new int[] {start, end}))
-            .collect(toImmutableList());
-    if (matchIndices.size() != matches.size()) {
-      throw new IllegalStateException(matchIndices.size() + " != " + matches.size());
-    }
     StringBuilder builder = new StringBuilder();
+    int inputIndex;
+    try {
+      inputIndex = appendReplaced(input, replacement, builder);
+    } catch (IOException impossible) {
+      throw new AssertionError(impossible);
+    }
+    return inputIndex == 0 && builder.length() == 0
+        ? input // avoid copying
+        : builder.append(input, inputIndex, input.length()).toString();
+  }
+
+  /**
+   * Appends {@code input} with the occurrences of this format replaced by {@code replacement} to
+   * {@code output}, up to the end of the last replaced occurrence, which is returned.
+   */
+  private int appendReplaced(
+      String input, Function<? super List<Substring.Match>, ?> replacement, Appendable output)
+      throws IOException {
+    int[] range = new int[2];
+    Iterator<List<Substring.Match>> occurrences =
+        matchRepeatedly(
+                input,
+                (start, end) -> {
+                  range[0] = start;
+                  range[1] = end;
+                })
+            .iterator();
     int inputIndex = 0;
-    for (int i = 0; i < matches.size(); i++) {
-      Object replaceWith = replacement.apply(matches.get(i));
+    while (occurrences.hasNext()) {
+      Object replaceWith = replacement.apply(occurrences.next());
       if (replaceWith == null) {
         continue; // skip
       }
-      int matchStart = matchIndices.get(i)[0];
-      int matchEnd = matchIndices.get(i)[1];
-      if (inputIndex < matchStart) {
-        builder.append(input, inputIndex, matchStart);
-      }
-      builder.append(replaceWith);
-      inputIndex = matchEnd;
+      output.append(input, inputIndex, range[0]).append(String.valueOf(replaceWith));
+      inputIndex = range[1];
     }
-    return inputIndex == 0 && builder.length() == 0
-        ? input // avoid copying
-        : builder.append(input, inputIndex, input.length()).toString();
+    return inputIndex;
   }
 
   /**
@@ -917,6 +1098,68 @@ abstract class AbstractStringFormat {
     return scanExpecting(2, input, combining(mapper));
   }
 
+  /**
+   * Scans the characters read from {@code input} and extracts all matches of this string format.
+   * Returns the lazy stream of non-null results from passing the single placeholder values to the
+   * {@code mapper} function for each iteration, with null results skipped.
+   *
+   * <p>For example, to find all file names from a large log file:
+   *
+   * <pre>{@code
+   * try (Reader reader = Files.newBufferedReader(logFile)) {
+   *   new StringFormat("/home/usr/myname/{file_name}\n")
+   *       .scan(reader, 4096, fileName -> ...)
+   *       .forEach(...);
+   * }
+   * }</pre>
+   *
+   * <p>Same as {@link #scan(String, Function)}, except characters are read from {@code input} in
+   * chunks and memory use is bounded by {@code maxMatchLength}, the maximum length of any match of
+   * this format (placeholder values included). Matches spanning chunk boundaries are still found.
+   * If the format string starts with a placeholder, the placeholder spans from the end of the
+   * previous match, so the characters between matches are retained too; they shouldn't be longer
+   * than {@code maxMatchLength} either.
+   *
+   * <p>{@code input} isn't closed when the returned stream is consumed. IOException from
+   * {@code input} is thrown as {@link java.io.UncheckedIOException}.
+   *
+   * @throws IllegalArgumentException if the format string doesn't have exactly one placeholder,
+   *     ends with a placeholder (which would extend to the end of {@code input}), or {@code
+   *     maxMatchLength} isn't positive
+   * @since 8.6
+   */
+  public final <R> Stream<R> scan(
+      Reader input, int maxMatchLength, Function<? super String, ? extends R> mapper) {
+    return scanExpecting(1, input, maxMatchLength, onlyElement(mapper));
+  }
+
+  /**
+   * Scans the characters read from {@code input} and extracts all matches of this string format.
+   * Returns the lazy stream of non-null results from passing the two placeholder values to the
+   * {@code mapper} function for each iteration, with null results skipped.
+   *
+   * <p>Same as {@link #scan(String, BiFunction)}, except characters are read from {@code input} in
+   * chunks and memory use is bounded by {@code maxMatchLength}, the maximum length of any match of
+   * this format (placeholder values included). Matches spanning chunk boundaries are still found.
+   * If the format string starts with a placeholder, the placeholder spans from the end of the
+   * previous match, so the characters between matches are retained too; they shouldn't be longer
+   * than {@code maxMatchLength} either.
+   *
+   * <p>{@code input} isn't closed when the returned stream is consumed. IOException from
+   * {@code input} is thrown as {@link java.io.UncheckedIOException}.
+   *
+   * @throws IllegalArgumentException if the format string doesn't have exactly two placeholders,
+   *     ends with a placeholder (which would extend to the end of {@code input}), or {@code
+   *     maxMatchLength} isn't positive
+   * @since 8.6
+   */
+  public final <R> Stream<R> scan(
+      Reader input,
+      int maxMatchLength,
+      BiFunction<? super String, ? super String, ? extends R> mapper) {
+    return scanExpecting(2, input, maxMatchLength, combining(mapper));
+  }
+
   /**
    * Scans the {@code input} string and extracts all matches of this string format. Returns the lazy
    * stream of non-null results from passing the 3 placeholder values to the {@code mapper} function
@@ -1106,11 +1349,55 @@ abstract class AbstractStringFormat {
    */
   public final String format(Object... args) {
     checkFormatArgs(args);
-    StringBuilder builder = new StringBuilder().append(fragments.get(0));
+    int estimatedLength = fragmentsLength;
+    for (Object arg : args) {
+      estimatedLength +=
+          arg instanceof CharSequence ? ((CharSequence) arg).length() : ESTIMATED_ARG_LENGTH;
+    }
+    return formatTo(new StringBuilder(estimatedLength), args).toString();
+  }
+
+  /**
+   * Appends the string formatted with placeholders filled using {@code args} to {@code builder},
+   * and returns {@code builder}. Unlike {@link #format}, no intermediary string is created, so it
+   * can be used to build up a large string from many formatted pieces in an existing buffer.
+   *
+   * @throws IllegalArgumentException if the number of arguments doesn't match that of the
+   *     placeholders
+   * @since 8.6
+   */
+  public final StringBuilder formatTo(StringBuilder builder, Object... args) {
+    requireNonNull(builder);
+    checkFormatArgs(args);
+    builder.ensureCapacity(builder.length() + fragmentsLength);
+    builder.append(fragments.get(0));
     for (int i = 0; i < args.length; i++) {
       builder.append(args[i]).append(fragments.get(i + 1));
     }
-    return builder.toString();
+    return builder;
+  }
+
+  /**
+   * Writes the string formatted with placeholders filled using {@code args} to {@code appendable}
+   * (for example a {@link java.io.Writer}), and returns {@code appendable}. No intermediary string
+   * is created for the formatted result.
+   *
+   * @throws IllegalArgumentException if the number of arguments doesn't match that of the
+   *     placeholders
+   * @throws IOException if thrown by {@code appendable}
+   * @since 8.6
+   */
+  public final <A extends Appendable> A formatTo(A appendable, Object... args) throws IOException {
+    requireNonNull(appendable);
+    checkFormatArgs(args);
+    appendable.append(fragments.get(0));
+    for (int i = 0; i < args.length; i++) {
+      Object arg = args[i];
+      appendable
+          .append(arg instanceof CharSequence ? (CharSequence) arg : String.valueOf(arg))
+          .append(fragments.get(i + 1));
+    }
+    return appendable;
   }
 
   /** Returns the string format. */
@@ -1235,11 +1522,50 @@ abstract class AbstractStringFormat {
         .filter(v -> v != null);
   }
 
+  private <R> Stream<R> scanExpecting(
+      int cardinality, Reader input, int maxMatchLength, Collector<? super String, ?, R> collector) {
+    requireNonNull(input);
+    requireNonNull(collector);
+    checkPlaceholderCount(cardinality);
+    return occurrenceInReader()
+        .repeatedly()
+        .from(input, maxMatchLength)
+        .map(occurrence -> scanAsLists(occurrence).findFirst().get())
+        .map(values -> values.stream().map(Substring.Match::toString).collect(collector))
+        .filter(v -> v != null);
+  }
+
+  /** Returns the pattern that spans each occurrence of this format, as {@link #scanAsLists} does. */
+  private Substring.Pattern occurrence() {
+    Substring.Pattern pattern = first(fragments.get(0));
+    for (String fragment : fragments.subList(1, numPlaceholders())) {
+      pattern = pattern.extendTo(first(fragment));
+    }
+    String last = fragments.get(numPlaceholders());
+    if (numPlaceholders() == 0) {
+      return pattern;
+    }
+    // If the last placeholder is at end, it extends to the end.
+    return last.isEmpty() ? pattern.toEnd() : pattern.extendTo(first(last));
+  }
+
+  /**
+   * Returns {@link #occurrence} for scanning a {@link Reader}, where an occurrence can't extend to
+   * the end of input without buffering all of it.
+   */
+  private Substring.Pattern occurrenceInReader() {
+    if (numPlaceholders() > 0 && fragments.get(numPlaceholders()).isEmpty()) {
+      throw new IllegalArgumentException(
+          "Format string ending with a placeholder cannot scan a Reader: " + format);
+    }
+    return occurrence();
+  }
+
   private int numPlaceholders() {
     return fragments.size() - 1;
   }
 
-  private void checkUnformattability() {
+  final void checkUnformattability() {
     for (int i = 1; i < numPlaceholders(); i++) {
       if (this.fragments.get(i).isEmpty()) {
         throw new IllegalArgumentException("Placeholders cannot be next to each other: " + format);
@@ -0,0 +1,250 @@
+/*****************************************************************************
+ * ------------------------------------------------------------------------- *
+ * Licensed under the Apache License, Version 2.0 (the "License");           *
+ * you may not use this file except in compliance with the License.          *
+ * You may obtain a copy of the License at                                   *
+ *                                                                           *
+ * http://www.apache.org/licenses/LICENSE-2.0                                *
+ *                                                                           *
+ * Unless required by applicable law or agreed to in writing, software       *
+ * distributed under the License is distributed on an "AS IS" BASIS,         *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  *
+ * See the License for the specific language governing permissions and       *
+ * limitations under the License.                                            *
+ *****************************************************************************/
+package com.google.mu.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton that finds the leftmost occurrence of any of a fixed list of non-empty
+ * literal keywords in a single pass over the input.
+ *
+ * <p>If multiple keywords occur at the same leftmost index, the one that appears first in the
+ * keyword list wins, which is the same tie-breaking rule used by {@link
+ * Substring#firstOccurrence}.
+ *
+ * <p>Transitions over the ASCII chars used by the keywords are fully determinized into a dense
+ * table, so each ASCII input character costs one table lookup. Non-ASCII chars (CJK keywords alone
+ * can use thousands of them) are kept as sparse trie edges and resolved through failure links, so
+ * that the table doesn't grow with the size of the non-ASCII alphabet.
+ */
+final class AhoCorasick {
+  private static final int ROOT = 0;
+  private static final int NO_KEYWORD = -1;
+
+  private final int[] keywordLengths;
+  private final int maxKeywordLength;
+
+  /** Maps ASCII chars to alphabet index. 0 is reserved for chars not in any keyword. */
+  private final int[] asciiAlphabet = new int[128];
+  private final int asciiAlphabetSize;
+
+  /** {@code asciiTransitions[state * asciiAlphabetSize + alphabetIndex]} is the next state. */
+  private final int[] asciiTransitions;
+
+  /** Bit set of the non-ASCII chars used by the keywords, or null if there is none. */
+  private final long[] nonAsciiChars;
+
+  /**
+   * The trie edges of {@code state} labeled by non-ASCII chars are at indices {@code
+   * [nonAsciiEdgeStarts[state], nonAsciiEdgeStarts[state + 1])}, sorted by char.
+   */
+  private final int[] nonAsciiEdgeStarts;
+  private final char[] nonAsciiEdgeChars;
+  private final int[] nonAsciiEdgeTargets;
+
+  /** For each state, the state of its longest proper suffix in the trie. */
+  private final int[] failures;
+
+  /**
+   * For each state, the keyword (index in the keyword list) that's the longest suffix of the path
+   * leading to the state, or {@link #NO_KEYWORD}. Longer means earlier start index.
+   */
+  private final int[] longestKeywords;
+
+  AhoCorasick(List<String> keywords) {
+    int totalChars = 0;
+    long[] nonAscii = null;
+    this.keywordLengths = new int[keywords.size()];
+    int maxLength = 0;
+    int nextAlphabetIndex = 1;
+    for (int k = 0; k < keywords.size(); k++) {
+      String keyword = keywords.get(k);
+      if (keyword.isEmpty()) {
+        throw new IllegalArgumentException("Empty keyword not supported.");
+      }
+      keywordLengths[k] = keyword.length();
+      maxLength = Math.max(maxLength, keyword.length());
+      totalChars += keyword.length();
+      for (int i = 0; i < keyword.length(); i++) {
+        char c = keyword.charAt(i);
+        if (c < 128) {
+          if (asciiAlphabet[c] == 0) {
+            asciiAlphabet[c] = nextAlphabetIndex++;
+          }
+        } else {
+          if (nonAscii == null) {
+            nonAscii = new long[(Character.MAX_VALUE + 1) / 64];
+          }
+          nonAscii[c >>> 6] |= 1L << c;
+        }
+      }
+    }
+    this.maxKeywordLength = maxLength;
+    this.asciiAlphabetSize = nextAlphabetIndex;
+    this.nonAsciiChars = nonAscii;
+
+    // Build the trie. At most one state per keyword char, plus the root.
+    int maxStates = totalChars + 1;
+    int[] trie = new int[maxStates * asciiAlphabetSize];
+    // Keyed by (state << 16 | char), so that edges are sorted by state, then by char.
+    TreeMap<Long, Integer> nonAsciiEdges = new TreeMap<>();
+    int[] keywordAtState = new int[maxStates];
+    Arrays.fill(keywordAtState, NO_KEYWORD);
+    int states = 1;
+    for (int k = 0; k < keywords.size(); k++) {
+      String keyword = keywords.get(k);
+      int state = ROOT;
+      for (int i = 0; i < keyword.length(); i++) {
+        char c = keyword.charAt(i);
+        if (c < 128) {
+          int slot = state * asciiAlphabetSize + asciiAlphabet[c];
+          if (trie[slot] == ROOT) {
+            trie[slot] = states++;
+          }
+          state = trie[slot];
+        } else {
+          Long edge = ((long) state << 16) | c;
+          Integer child = nonAsciiEdges.get(edge);
+          if (child == null) {
+            child = states++;
+            nonAsciiEdges.put(edge, child);
+          }
+          state = child;
+        }
+      }
+      if (keywordAtState[state] == NO_KEYWORD) { // Duplicate keywords: first one wins.
+        keywordAtState[state] = k;
+      }
+    }
+    this.asciiTransitions = Arrays.copyOf(trie, states * asciiAlphabetSize);
+    this.longestKeywords = Arrays.copyOf(keywordAtState, states);
+    this.failures = new int[states];
+    this.nonAsciiEdgeStarts = new int[states + 1];
+    this.nonAsciiEdgeChars = new char[nonAsciiEdges.size()];
+    this.nonAsciiEdgeTargets = new int[nonAsciiEdges.size()];
+    int edgeIndex = 0;
+    for (Map.Entry<Long, Integer> edge : nonAsciiEdges.entrySet()) {
+      long key = edge.getKey();
+      nonAsciiEdgeStarts[(int) (key >>> 16) + 1]++;
+      nonAsciiEdgeChars[edgeIndex] = (char) key;
+      nonAsciiEdgeTargets[edgeIndex++] = edge.getValue();
+    }
+    for (int state = 0; state < states; state++) {
+      nonAsciiEdgeStarts[state + 1] += nonAsciiEdgeStarts[state];
+    }
+
+    // Breadth-first, fill in failure links and the ASCII transitions so the trie becomes a DFA
+    // over the ASCII alphabet. The root's children fail to the root.
+    Queue<Integer> queue = new ArrayDeque<>();
+    for (int a = 1; a < asciiAlphabetSize; a++) {
+      int child = asciiTransitions[a];
+      if (child != ROOT) {
+        queue.add(child);
+      }
+    }
+    for (int e = nonAsciiEdgeStarts[ROOT]; e < nonAsciiEdgeStarts[ROOT + 1]; e++) {
+      queue.add(nonAsciiEdgeTargets[e]);
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.remove();
+      int failure = failures[state];
+      if (longestKeywords[state] == NO_KEYWORD) {
+        longestKeywords[state] = longestKeywords[failure];
+      }
+      for (int a = 1; a < asciiAlphabetSize; a++) {
+        int slot = state * asciiAlphabetSize + a;
+        int fallback = asciiTransitions[failure * asciiAlphabetSize + a];
+        int child = asciiTransitions[slot];
+        if (child == ROOT) {
+          asciiTransitions[slot] = fallback;
+        } else {
+          failures[child] = fallback;
+          queue.add(child);
+        }
+      }
+      for (int e = nonAsciiEdgeStarts[state]; e < nonAsciiEdgeStarts[state + 1]; e++) {
+        int child = nonAsciiEdgeTargets[e];
+        failures[child] = nonAsciiTransition(failure, nonAsciiEdgeChars[e]);
+        queue.add(child);
+      }
+    }
+  }
+
+  /**
+   * Finds the leftmost keyword occurrence in {@code input} starting from {@code fromIndex}.
+   *
+   * @return -1 if not found; otherwise the start index of the occurrence in the high 32 bits and
+   *     the keyword index in the low 32 bits
+   */
+  long find(CharSequence input, int fromIndex) {
+    int bestStart = Integer.MAX_VALUE;
+    int bestKeyword = NO_KEYWORD;
+    int state = ROOT;
+    int end = input.length();
+    for (int i = fromIndex; i < end; i++) {
+      // Any keyword ending at i starts at or after i - maxKeywordLength + 1.
+      if (i - maxKeywordLength >= bestStart) {
+        break;
+      }
+      char c = input.charAt(i);
+      if (c < 128) {
+        state = asciiTransitions[state * asciiAlphabetSize + asciiAlphabet[c]];
+      } else if (nonAsciiChars != null && (nonAsciiChars[c >>> 6] & (1L << c)) != 0) {
+        state = nonAsciiTransition(state, c);
+      } else {
+        state = ROOT;
+        continue;
+      }
+      int keyword = longestKeywords[state];
+      if (keyword != NO_KEYWORD) {
+        int start = i - keywordLengths[keyword] + 1;
+        if (start < bestStart || (start == bestStart && keyword < bestKeyword)) {
+          bestStart = start;
+          bestKeyword = keyword;
+        }
+      }
+    }
+    return bestKeyword == NO_KEYWORD ? -1 : ((long) bestStart << 32) | bestKeyword;
+  }
+
+  int keywordLength(int keyword) {
+    return keywordLengths[keyword];
+  }
+
+  /**
+   * Follows the failure links from {@code state} until a trie edge labeled {@code c} is found.
+   * Amortized O(1) per input char, because each failure link moves to a shallower state.
+   */
+  private int nonAsciiTransition(int state, char c) {
+    for (; ; state = failures[state]) {
+      int from = nonAsciiEdgeStarts[state];
+      int to = nonAsciiEdgeStarts[state + 1];
+      if (from < to) {
+        int edge = Arrays.binarySearch(nonAsciiEdgeChars, from, to, c);
+        if (edge >= 0) {
+          return nonAsciiEdgeTargets[edge];
+        }
+      }
+      if (state == ROOT) {
+        return ROOT;
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*****************************************************************************
+ * ------------------------------------------------------------------------- *
+ * Licensed under the Apache License, Version 2.0 (the "License");           *
+ * you may not use this file except in compliance with the License.          *
+ * You may obtain a copy of the License at                                   *
+ *                                                                           *
+ * http://www.apache.org/licenses/LICENSE-2.0                                *
+ *                                                                           *
+ * Unless required by applicable law or agreed to in writing, software       *
+ * distributed under the License is distributed on an "AS IS" BASIS,         *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  *
+ * See the License for the specific language governing permissions and       *
+ * limitations under the License.                                            *
+ *****************************************************************************/
+package com.google.mu.util;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A small concurrent cache bounded by size, meant for values derived from a mostly fixed set of
+ * keys, such as parsed compile-time-constant templates.
+ *
+ * <p>When the cache is full, an entry that hasn't been read since the last eviction is evicted to
+ * make room (an approximation of LRU known as "second chance"), so that the frequently used keys
+ * stay cached even when a flood of one-off keys comes through. Values may be computed more than
+ * once under contention, so {@code compute} should be a pure function.
+ */
+final class BoundedCache<K, V> {
+  private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+  private final int maxSize;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  BoundedCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize (" + maxSize + ") must be positive.");
+    }
+    this.maxSize = maxSize;
+  }
+
+  /** Returns the cached value of {@code key}, or computes and caches it with {@code compute}. */
+  V get(K key, Function<? super K, ? extends V> compute) {
+    Entry<V> entry = map.get(key);
+    if (entry != null) {
+      hits.increment();
+      if (!entry.used) { // Avoid writing to the shared field on every hit.
+        entry.used = true;
+      }
+      return entry.value;
+    }
+    misses.increment();
+    V value = requireNonNull(compute.apply(key));
+    if (map.size() >= maxSize) {
+      evictOne();
+    }
+    Entry<V> existing = map.putIfAbsent(key, new Entry<>(value));
+    return existing == null ? value : existing.value;
+  }
+
+  int size() {
+    return map.size();
+  }
+
+  long hits() {
+    return hits.sum();
+  }
+
+  long misses() {
+    return misses.sum();
+  }
+
+  /**
+   * Evicts the first entry not used since the last eviction, clearing the "used" bit of the
+   * entries skipped over. If all are used, evicts the first entry.
+   */
+  private void evictOne() {
+    for (Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator(); it.hasNext(); ) {
+      Entry<V> entry = it.next().getValue();
+      if (!entry.used) {
+        it.remove();
+        return;
+      }
+      entry.used = false;
+    }
+    Iterator<K> keys = map.keySet().iterator();
+    if (keys.hasNext()) {
+      map.remove(keys.next());
+    }
+  }
+
+  private static final class Entry<V> {
+    final V value;
+    volatile boolean used;
+
+    Entry(V value) {
+      this.value = value;
+    }
+  }
+}
@@ -25,10 +25,10 @@ import static java.util.Objects.requireNonNull;
 public interface CharPredicate {
 
   /** Equivalent to the {@code [a-zA-Z]} character class. */
-  static CharPredicate ALPHA = range('a', 'z').orRange('A', 'Z');
+  static CharPredicate ALPHA = CharTable.ascii(range('a', 'z').orRange('A', 'Z'));
 
   /** Equivalent to the {@code [a-zA-Z0-9_]} character class. */
-  static CharPredicate WORD = ALPHA .orRange('0', '9').or('_');
+  static CharPredicate WORD = CharTable.ascii(ALPHA.orRange('0', '9').or('_'));
 
   /** Corresponds to the ASCII characters. */
   static CharPredicate ASCII = new CharPredicate() {
@@ -65,15 +65,7 @@ public interface CharPredicate {
 
   /** Returns a CharPredicate for the range of characters: {@code [from, to]}. */
   static CharPredicate is(char ch) {
-    return new CharPredicate() {
-      @Override public boolean test(char c) {
-        return c == ch;
-      }
-
-      @Override public String toString() {
-        return "'" + ch + "'";
-      }
-    };
+    return new CharTable.Is(ch);
   }
 
   /** Returns a CharPredicate for the range of characters: {@code [from, to]}. */
@@ -186,6 +178,33 @@ public interface CharPredicate {
     };
   }
 
+  /**
+   * Returns an equivalent {@code CharPredicate} that looks up each character from a precomputed
+   * 64K-bit table, instead of evaluating this predicate.
+   *
+   * <p>Useful for predicates composed through {@link #or}, {@link #and}, {@link #not} etc. and then
+   * applied to many characters, because each test costs a single table lookup regardless of how
+   * complex the predicate is. For example:
+   *
+   * <pre>{@code
+   * static final CharPredicate PUNCTUATION = DIGIT.or(ALPHA).or(anyOf(" ,;")).not().precomputed();
+   * }</pre>
+   *
+   * <p>This predicate is evaluated once for every char value upfront, so it must be side-effect
+   * free and deterministic. Building the table costs 64K evaluations and 8KB of memory, so it's
+   * best done once and stored in a constant; and it only pays off if the predicate is going to be
+   * applied to many more characters than that. Don't precompute a cheap predicate that's only used
+   * to scan short strings.
+   *
+   * <p>{@link Substring} factory methods such as {@link Substring#consecutive} evaluate the
+   * predicate passed in as is, so precompute it first if it's expensive to evaluate.
+   *
+   * @since 8.6
+   */
+  default CharPredicate precomputed() {
+    return CharTable.full(this);
+  }
+
   /**
    * Returns {@code true} if a character sequence contains at least one matching BMP character.
    * Equivalent to {@code !matchesNoneOf(sequence)}.
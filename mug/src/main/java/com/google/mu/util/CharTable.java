@@ -0,0 +1,146 @@
+/*****************************************************************************
+ * ------------------------------------------------------------------------- *
+ * Licensed under the Apache License, Version 2.0 (the "License");           *
+ * you may not use this file except in compliance with the License.          *
+ * You may obtain a copy of the License at                                   *
+ *                                                                           *
+ * http://www.apache.org/licenses/LICENSE-2.0                                *
+ *                                                                           *
+ * Unless required by applicable law or agreed to in writing, software       *
+ * distributed under the License is distributed on an "AS IS" BASIS,         *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  *
+ * See the License for the specific language governing permissions and       *
+ * limitations under the License.                                            *
+ *****************************************************************************/
+package com.google.mu.util;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link CharPredicate} implementations backed by bit tables, so that composite predicates
+ * (through {@code or()}, {@code and()}, {@code not()} etc.) are evaluated with a single lookup per
+ * character instead of a chain of virtual calls.
+ *
+ * <p>Single-char predicates are kept recognizable so that {@link Substring} can search them with
+ * {@link String#indexOf(int)}, which the JVM compiles to SIMD instructions.
+ */
+final class CharTable {
+  /**
+   * Returns a predicate that looks up the ASCII characters from a 128-bit table, and delegates
+   * non-ASCII characters to {@code predicate}. Only costs 128 evaluations of {@code predicate} to
+   * build, so it's used for the built-in constants like {@link CharPredicate#ALPHA}, whose 64K-bit
+   * table is only built if {@link CharPredicate#precomputed} is called.
+   *
+   * <p>Not applied to user predicates, which may be backed by mutable state.
+   */
+  static CharPredicate ascii(CharPredicate predicate) {
+    requireNonNull(predicate);
+    if (predicate instanceof Is || predicate instanceof Ascii || predicate instanceof Full) {
+      return predicate;
+    }
+    long low = 0;
+    long high = 0;
+    for (char c = 0; c < 64; c++) {
+      if (predicate.test(c)) {
+        low |= 1L << c;
+      }
+      if (predicate.test((char) (c + 64))) {
+        high |= 1L << c;
+      }
+    }
+    return new Ascii(low, high, predicate);
+  }
+
+  /** Returns a predicate that looks up all characters from a 64K-bit table. */
+  static CharPredicate full(CharPredicate predicate) {
+    requireNonNull(predicate);
+    if (predicate instanceof Full) {
+      return predicate;
+    }
+    if (predicate instanceof Ascii) {
+      predicate = ((Ascii) predicate).fallback;
+    }
+    long[] bits = new long[(Character.MAX_VALUE + 1) / 64];
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      if (predicate.test((char) c)) {
+        bits[c >> 6] |= 1L << c;
+      }
+    }
+    return new Full(bits, predicate.toString());
+  }
+
+  /** Returns the char if {@code predicate} matches exactly one char, or -1 if unknown. */
+  static int singleChar(CharPredicate predicate) {
+    return predicate instanceof Is ? ((Is) predicate).ch : -1;
+  }
+
+  static final class Is implements CharPredicate {
+    private final char ch;
+
+    Is(char ch) {
+      this.ch = ch;
+    }
+
+    @Override public boolean test(char c) {
+      return c == ch;
+    }
+
+    @Override public String toString() {
+      return "'" + ch + "'";
+    }
+  }
+
+  private static final class Ascii implements CharPredicate {
+    private final long low;
+    private final long high;
+    final CharPredicate fallback;
+
+    Ascii(long low, long high, CharPredicate fallback) {
+      this.low = low;
+      this.high = high;
+      this.fallback = fallback;
+    }
+
+    @Override public boolean test(char c) {
+      if (c < 64) {
+        return (low & (1L << c)) != 0;
+      }
+      if (c < 128) {
+        return (high & (1L << c)) != 0;
+      }
+      return fallback.test(c);
+    }
+
+    @Override public CharPredicate precomputed() {
+      return full(fallback);
+    }
+
+    @Override public String toString() {
+      return fallback.toString();
+    }
+  }
+
+  private static final class Full implements CharPredicate {
+    private final long[] bits;
+    private final String name;
+
+    Full(long[] bits, String name) {
+      this.bits = bits;
+      this.name = name;
+    }
+
+    @Override public boolean test(char c) {
+      return (bits[c >> 6] & (1L << c)) != 0;
+    }
+
+    @Override public CharPredicate precomputed() {
+      return this;
+    }
+
+    @Override public String toString() {
+      return name;
+    }
+  }
+
+  private CharTable() {}
+}
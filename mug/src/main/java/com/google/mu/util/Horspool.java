@@ -0,0 +1,94 @@
+/*****************************************************************************
+ * ------------------------------------------------------------------------- *
+ * Licensed under the Apache License, Version 2.0 (the "License");           *
+ * you may not use this file except in compliance with the License.          *
+ * You may obtain a copy of the License at                                   *
+ *                                                                           *
+ * http://www.apache.org/licenses/LICENSE-2.0                                *
+ *                                                                           *
+ * Unless required by applicable law or agreed to in writing, software       *
+ * distributed under the License is distributed on an "AS IS" BASIS,         *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  *
+ * See the License for the specific language governing permissions and       *
+ * limitations under the License.                                            *
+ *****************************************************************************/
+package com.google.mu.util;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.Arrays;
+
+/**
+ * Boyer-Moore-Horspool search of a long needle, in both directions.
+ *
+ * <p>For long needles the search skips up to {@code needle.length()} characters per step, where
+ * {@link String#indexOf(String)} has to examine every position. The skip tables are indexed by the
+ * low byte of each char, with colliding chars sharing the smallest (safe) skip distance.
+ *
+ * <p>Only used for CharSequence inputs that aren't String (such as {@link java.nio.CharBuffer} or
+ * {@link StringBuilder}), which otherwise fall back to a char-by-char comparison loop. String
+ * inputs use the intrinsified {@code String#indexOf()} instead.
+ */
+final class Horspool {
+  private static final int TABLE_SIZE = 256;
+  private static final int MASK = TABLE_SIZE - 1;
+
+  private final String needle;
+  private final int[] forwardSkips = new int[TABLE_SIZE];
+  private final int[] backwardSkips = new int[TABLE_SIZE];
+
+  Horspool(String needle) {
+    int m = needle.length();
+    if (m == 0) {
+      throw new IllegalArgumentException("Empty needle not supported.");
+    }
+    this.needle = needle;
+    Arrays.fill(forwardSkips, m);
+    Arrays.fill(backwardSkips, m);
+    for (int i = 0; i < m - 1; i++) {
+      forwardSkips[needle.charAt(i) & MASK] = m - 1 - i;
+    }
+    for (int i = m - 1; i > 0; i--) {
+      backwardSkips[needle.charAt(i) & MASK] = i;
+    }
+  }
+
+  /** Same as {@code input.indexOf(needle, fromIndex)}. */
+  int indexIn(CharSequence input, int fromIndex) {
+    int last = needle.length() - 1;
+    char lastChar = needle.charAt(last);
+    int maxStart = input.length() - needle.length();
+    for (int i = max(fromIndex, 0); i <= maxStart; ) {
+      char c = input.charAt(i + last);
+      if (c == lastChar && matchesAt(input, i, 0, last)) {
+        return i;
+      }
+      i += forwardSkips[c & MASK];
+    }
+    return -1;
+  }
+
+  /** Same as {@code input.lastIndexOf(needle, fromIndex)}. */
+  int lastIndexIn(CharSequence input, int fromIndex) {
+    char firstChar = needle.charAt(0);
+    for (int i = min(fromIndex, input.length() - needle.length()); i >= 0; ) {
+      char c = input.charAt(i);
+      if (c == firstChar && matchesAt(input, i, 1, needle.length())) {
+        return i;
+      }
+      i -= backwardSkips[c & MASK];
+    }
+    return -1;
+  }
+
+  /** Compares {@code needle[from, to)} against {@code input} at {@code offset}. */
+  private boolean matchesAt(CharSequence input, int offset, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (input.charAt(offset + i) != needle.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
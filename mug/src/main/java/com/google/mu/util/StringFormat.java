@@ -16,15 +16,17 @@ package com.google.mu.util;
 
 import static com.google.mu.util.InternalCollectors.toImmutableList;
 import static com.google.mu.util.Substring.BoundStyle.INCLUSIVE;
-import static java.util.Arrays.asList;
+import static java.util.Comparator.comparingInt;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import com.google.mu.annotations.TemplateFormatMethod;
 import com.google.mu.annotations.TemplateString;
@@ -89,6 +91,9 @@ public final class StringFormat extends AbstractStringFormat {
           .immediatelyBetween("{", INCLUSIVE, "}", INCLUSIVE)
           .repeatedly();
 
+  /** Templates passed to {@link #using} are almost always constants, so parse each only once. */
+  static final BoundedCache<String, StringFormat> USING_CACHE = new BoundedCache<>(1000);
+
   /**
    * Constructs a StringFormat with placeholders in the syntax of {@code "{foo}"}. For example:
    *
@@ -108,6 +113,90 @@ public final class StringFormat extends AbstractStringFormat {
     super(format, PLACEHOLDERS, "{...}");
   }
 
+  /**
+   * Returns a new, reusable {@link Fields} object to be passed to {@link #parseInto}.
+   *
+   * @since 8.6
+   */
+  public Fields newFields() {
+    return new Fields(this);
+  }
+
+  /**
+   * Parses {@code input} into {@code fields} without allocating, for hot paths such as parsing
+   * resource names of every request. For example:
+   *
+   * <pre>{@code
+   * private static final StringFormat SHARD = new StringFormat("shard-{id}-of-{total}");
+   *
+   * StringFormat.Fields fields = SHARD.newFields();
+   * if (SHARD.parseInto(resourceName, fields)) {
+   *   int id = fields.intAt(0);
+   *   int total = fields.intAt(1);
+   *   ...
+   * }
+   * }</pre>
+   *
+   * <p>The fragments of this format are matched the same way as {@link #parse(String, Function)}.
+   *
+   * @return true if {@code input} matches this format, in which case {@code fields} holds the
+   *     placeholder values; false otherwise, in which case the content of {@code fields} is
+   *     unspecified
+   * @throws IllegalArgumentException if {@code fields} wasn't created by this format
+   * @since 8.6
+   */
+  public boolean parseInto(CharSequence input, Fields fields) {
+    requireNonNull(input);
+    if (fields.format != this) {
+      throw new IllegalArgumentException("fields not created by " + this);
+    }
+    fields.input = null;
+    if (!parseInto(input, fields.bounds)) {
+      return false;
+    }
+    fields.input = input;
+    return true;
+  }
+
+  /**
+   * Scans {@code input} for occurrences of this format, and passes each occurrence to {@code
+   * onMatch} through the reused {@code fields}, without allocating a list or substrings per
+   * occurrence. Scanning stops as soon as {@code onMatch} returns false. For example:
+   *
+   * <pre>{@code
+   * private static final StringFormat KEY_VALUE = new StringFormat("{key}={value};");
+   *
+   * StringFormat.Fields fields = KEY_VALUE.newFields();
+   * KEY_VALUE.scanInto(document, fields, kv -> {
+   *   if (kv.get(0).toString().equals("id")) {
+   *     id = kv.longAt(1);
+   *     return false;  // found it
+   *   }
+   *   return true;
+   * });
+   * }</pre>
+   *
+   * <p>Occurrences are found the same way as {@link #scanAsLists}. {@code fields} only holds
+   * valid values while {@code onMatch} is running.
+   *
+   * @return the number of occurrences passed to {@code onMatch}
+   * @throws IllegalArgumentException if {@code fields} wasn't created by this format
+   * @since 8.6
+   */
+  public int scanInto(CharSequence input, Fields fields, Predicate<? super Fields> onMatch) {
+    requireNonNull(input);
+    requireNonNull(onMatch);
+    if (fields.format != this) {
+      throw new IllegalArgumentException("fields not created by " + this);
+    }
+    fields.input = input;
+    try {
+      return scanInto(input, fields.bounds, () -> onMatch.test(fields));
+    } finally {
+      fields.input = null;
+    }
+  }
+
   /**
    * Returns string with the "{placeholder}"s in {@code template} filled by {@code args}, in order.
    *
@@ -143,21 +232,11 @@ public final class StringFormat extends AbstractStringFormat {
    */
   @TemplateFormatMethod
   public static String using(@TemplateString String template, Object... args) {
-    Iterator<Object> argsIterator = asList(args).iterator();
-    String result =
-        PLACEHOLDERS.replaceAllFrom(
-            template,
-            placeholder -> {
-              try {
-                return String.valueOf(argsIterator.next());
-              } catch (NoSuchElementException argExpected) {
-                throw incorrectNumberOfFormatArgs(template, args.length);
-              }
-            });
-    if (argsIterator.hasNext()) {
+    StringFormat format = USING_CACHE.get(template, StringFormat::new);
+    if (format.fragments.size() - 1 != args.length) {
       throw incorrectNumberOfFormatArgs(template, args.length);
     }
-    return result;
+    return format.format(args);
   }
 
   /**
@@ -277,6 +356,355 @@ public final class StringFormat extends AbstractStringFormat {
     };
   }
 
+  /**
+   * The placeholder values from {@link StringFormat#parseInto}, as offsets into the input. Values
+   * are read as primitives or {@link CharSequence} views, without copying substrings.
+   *
+   * <p>Placeholders are indexed from 0 in the order they appear in the format string, with {@code
+   * "{...}"} placeholders skipped.
+   *
+   * <p>A {@code Fields} object is meant to be reused across many {@code parseInto()} calls, and is
+   * not thread-safe. Consider keeping one per thread, or one per call site in a loop.
+   *
+   * @since 8.6
+   */
+  public static final class Fields {
+    private final StringFormat format;
+    private final int[] bounds; // [start, end) of every placeholder, including "{...}"
+    private final int[] capturing; // index in bounds of the capturing placeholders
+    private CharSequence input; // null if not parsed
+
+    private Fields(StringFormat format) {
+      int numPlaceholders = format.fragments.size() - 1;
+      this.format = format;
+      this.bounds = new int[2 * numPlaceholders];
+      this.capturing = new int[format.numCapturingPlaceholders()];
+      for (int i = 0, c = 0; i < numPlaceholders; i++) {
+        if (format.isCapturing(i)) {
+          capturing[c++] = i;
+        }
+      }
+    }
+
+    /** Returns the number of placeholder values. */
+    public int size() {
+      return capturing.length;
+    }
+
+    /** Returns the index in the input where the {@code i}-th placeholder value starts. */
+    public int start(int i) {
+      checkParsed();
+      return bounds[2 * capturing[i]];
+    }
+
+    /** Returns the index in the input after the {@code i}-th placeholder value ends. */
+    public int end(int i) {
+      checkParsed();
+      return bounds[2 * capturing[i] + 1];
+    }
+
+    /** Returns a view of the {@code i}-th placeholder value. */
+    public CharSequence get(int i) {
+      int start = start(i);
+      return Substring.Match.nonBacktrackable(input, start, end(i) - start);
+    }
+
+    /**
+     * Returns the {@code i}-th placeholder value as a decimal {@code int}.
+     *
+     * @throws NumberFormatException if the value isn't a valid {@code int}
+     */
+    public int intAt(int i) {
+      long value = parseLong(input, start(i), end(i), Integer.MIN_VALUE, Integer.MAX_VALUE);
+      return (int) value;
+    }
+
+    /**
+     * Returns the {@code i}-th placeholder value as a decimal {@code long}.
+     *
+     * @throws NumberFormatException if the value isn't a valid {@code long}
+     */
+    public long longAt(int i) {
+      return parseLong(input, start(i), end(i), Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /** Returns the placeholder values. */
+    @Override public String toString() {
+      if (input == null) {
+        return "[]";
+      }
+      StringBuilder builder = new StringBuilder("[");
+      for (int i = 0; i < size(); i++) {
+        if (i > 0) {
+          builder.append(", ");
+        }
+        builder.append(input, start(i), end(i));
+      }
+      return builder.append("]").toString();
+    }
+
+    private void checkParsed() {
+      if (input == null) {
+        throw new IllegalStateException("No successfully parsed input.");
+      }
+    }
+
+    /** Same as {@link Long#parseLong} but with no allocation, and bounded by [min, max]. */
+    private static long parseLong(CharSequence input, int start, int end, long min, long max) {
+      int i = start;
+      boolean negative = i < end && input.charAt(i) == '-';
+      if (i < end && (negative || input.charAt(i) == '+')) {
+        i++;
+      }
+      if (i == end) {
+        throw numberFormatError(input, start, end);
+      }
+      // Accumulate negatively so that MIN_VALUE doesn't overflow.
+      long limit = negative ? min : -max;
+      long result = 0;
+      for (; i < end; i++) {
+        int digit = Character.digit(input.charAt(i), 10);
+        if (digit < 0 || result < (limit + digit) / 10) {
+          throw numberFormatError(input, start, end);
+        }
+        result = result * 10 - digit;
+      }
+      return negative ? result : -result;
+    }
+
+    private static NumberFormatException numberFormatError(CharSequence input, int start, int end) {
+      return new NumberFormatException(
+          "For input string: \"" + input.subSequence(start, end) + "\"");
+    }
+  }
+
+  /**
+   * Routes input strings to the handler of the matching {@link StringFormat} among a set of
+   * templates, such as resource paths:
+   *
+   * <pre>{@code
+   * StringFormat.Router<Resource> router = StringFormat.Router.<Resource>builder()
+   *     .add(new StringFormat("projects/{p}/locations/{l}"), m -> location(m.get(0), m.get(1)))
+   *     .add(new StringFormat("projects/{p}"), m -> project(m.get(0)))
+   *     .build();
+   * Optional<Resource> resource = router.route(path);
+   * }</pre>
+   *
+   * <p>The templates are indexed by all their literal fragments. Their leading literals (the part
+   * before the first placeholder) are in a char trie walked along the input. After each
+   * placeholder, the fragments that follow it are in another char trie, so that the input is
+   * scanned once for all of them instead of once per template; and the trailing literals are in a
+   * char trie walked backwards from the end of the input. Only the templates whose fragments all
+   * match are then parsed with {@link StringFormat#parseAsList}. So the cost of routing an input
+   * is proportional to its length (times the fragment length), not to the number of templates,
+   * even if they all share the same leading literal like {@code "projects/"}.
+   *
+   * <p>Candidates are tried in descending order of the leading literal length, with templates of
+   * the same leading literal tried in the order they were added. The first one that matches and
+   * whose handler returns non-null wins.
+   *
+   * <p>Instances are immutable and thread-safe.
+   *
+   * @since 8.6
+   */
+  public static final class Router<R> {
+    private final Node<State<R>> root; // the char trie of the leading literals
+
+    private Router(Node<State<R>> root) {
+      this.root = root;
+    }
+
+    /** Returns a new builder. */
+    public static <R> Builder<R> builder() {
+      return new Builder<>();
+    }
+
+    /**
+     * Routes {@code input} to the handler of the first matching template.
+     *
+     * @return the result of the handler, or empty if no template matches {@code input}
+     */
+    public Optional<R> route(String input) {
+      return route(root, requireNonNull(input), 0);
+    }
+
+    /** Tries the templates with longer leading literals first. */
+    private static <R> Optional<R> route(Node<State<R>> node, String input, int index) {
+      if (index < input.length()) {
+        Node<State<R>> child = node.next(input.charAt(index));
+        if (child != null) {
+          Optional<R> result = route(child, input, index + 1);
+          if (result.isPresent()) {
+            return result;
+          }
+        }
+      }
+      if (node.value == null) {
+        return Optional.empty();
+      }
+      List<Route<R>> candidates = new ArrayList<>();
+      node.value.collect(input, index, candidates);
+      candidates.sort(comparingInt(route -> route.order));
+      for (Route<R> route : candidates) {
+        Optional<R> result = route.format.parseAsList(input).map(route.handler);
+        if (result.isPresent()) {
+          return result;
+        }
+      }
+      return Optional.empty();
+    }
+
+    /** Builder of {@link Router}. */
+    public static final class Builder<R> {
+      private final List<Route<R>> routes = new ArrayList<>();
+
+      /**
+       * Adds {@code format} to be routed to {@code handler}, which is called with the placeholder
+       * values as returned by {@link StringFormat#parseAsList}.
+       *
+       * @throws IllegalArgumentException if {@code format} cannot be parsed (e.g. it has two
+       *     placeholders next to each other)
+       */
+      public Builder<R> add(
+          StringFormat format, Function<? super List<Substring.Match>, ? extends R> handler) {
+        requireNonNull(handler);
+        format.checkUnformattability();
+        routes.add(new Route<>(format, handler, routes.size()));
+        return this;
+      }
+
+      /** Returns the router with all the added templates. */
+      public Router<R> build() {
+        Node<State<R>> root = new Node<>();
+        for (Route<R> route : routes) {
+          List<String> fragments = route.format.fragments;
+          State<R> state = stateAt(root.add(fragments.get(0), false), "");
+          int lastIndex = fragments.size() - 1;
+          for (int i = 1; i < lastIndex; i++) {
+            state = stateAt(state.inner.add(fragments.get(i), false), fragments.get(i));
+          }
+          if (lastIndex == 0) {
+            state.complete.add(route);
+          } else {
+            Node<List<Route<R>>> suffix = state.suffixes.add(fragments.get(lastIndex), true);
+            if (suffix.value == null) {
+              suffix.value = new ArrayList<>();
+            }
+            suffix.value.add(route);
+          }
+        }
+        return new Router<>(root);
+      }
+
+      private static <R> State<R> stateAt(Node<State<R>> node, String fragment) {
+        if (node.value == null) {
+          node.value = new State<>(fragment);
+        }
+        return node.value;
+      }
+
+      Builder() {}
+    }
+
+    private static final class Route<R> {
+      final StringFormat format;
+      final Function<? super List<Substring.Match>, ? extends R> handler;
+      final int order;
+
+      Route(
+          StringFormat format,
+          Function<? super List<Substring.Match>, ? extends R> handler,
+          int order) {
+        this.format = format;
+        this.handler = handler;
+        this.order = order;
+      }
+    }
+
+    /**
+     * The templates whose fragments so far have matched the input, up to the fragment that leads
+     * to this state.
+     */
+    private static final class State<R> {
+      final String fragment;
+      final List<Route<R>> complete = new ArrayList<>(); // no more placeholders
+      final Node<State<R>> inner = new Node<>(); // a placeholder, a fragment, and more
+      final Node<List<Route<R>>> suffixes = new Node<>(); // the last placeholder, reversed suffix
+
+      State(String fragment) {
+        this.fragment = fragment;
+      }
+
+      /** Adds the templates matching {@code input} from {@code index} to {@code candidates}. */
+      void collect(String input, int index, List<Route<R>> candidates) {
+        if (index == input.length()) {
+          candidates.addAll(complete);
+        }
+        // The last placeholder spans from index to the suffix, which must end the input.
+        Node<List<Route<R>>> suffix = suffixes;
+        for (int end = input.length(); suffix != null; suffix = suffix.next(input.charAt(--end))) {
+          if (suffix.value != null) {
+            candidates.addAll(suffix.value);
+          }
+          if (end <= index) {
+            break;
+          }
+        }
+        // A placeholder that isn't the last one ends at the first occurrence of the next fragment.
+        if (inner.isLeaf()) {
+          return;
+        }
+        for (int start = index; start < input.length(); start++) {
+          Node<State<R>> node = inner;
+          for (int i = start; i < input.length(); ) {
+            node = node.next(input.charAt(i++));
+            if (node == null) {
+              break;
+            }
+            if (node.value != null && input.indexOf(node.value.fragment, index) == start) {
+              node.value.collect(input, i, candidates);
+            }
+          }
+        }
+      }
+    }
+
+    /** Char trie node, only mutated while the router is being built. */
+    private static final class Node<T> {
+      T value; // non-null if a key ends here
+      private final List<Node<T>> children = new ArrayList<>();
+      private String keys = ""; // keys.charAt(i) leads to children.get(i)
+
+      /** Returns the node of {@code key}, which is added backwards if {@code reversed}. */
+      Node<T> add(String key, boolean reversed) {
+        Node<T> node = this;
+        for (int i = 0; i < key.length(); i++) {
+          node = node.child(key.charAt(reversed ? key.length() - 1 - i : i));
+        }
+        return node;
+      }
+
+      Node<T> next(char key) {
+        int i = keys.indexOf(key);
+        return i < 0 ? null : children.get(i);
+      }
+
+      boolean isLeaf() {
+        return children.isEmpty();
+      }
+
+      private Node<T> child(char key) {
+        Node<T> child = next(key);
+        if (child == null) {
+          child = new Node<>();
+          keys += key;
+          children.add(child);
+        }
+        return child;
+      }
+    }
+  }
+
   /**
    * A template that will produce instances of type {@code T}, after filling the
    * template placeholders with the given variadic parameters.
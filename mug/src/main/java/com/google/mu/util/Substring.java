@@ -24,18 +24,29 @@ import static java.util.regex.Pattern.compile;
 import static java.util.regex.Pattern.quote;
 import static java.util.stream.Collectors.collectingAndThen;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.google.mu.util.stream.BiStream;
 import com.google.mu.util.stream.MoreStreams;
@@ -368,9 +379,20 @@ import com.google.mu.util.stream.MoreStreams;
  * @since 2.0
  */
 public final class Substring {
+  /**
+   * With fewer literal candidates, {@link #firstOccurrence} is faster by running the native
+   * {@code String#indexOf()} for each candidate.
+   */
+  private static final int MIN_LITERALS_FOR_AHO_CORASICK = 4;
+  /**
+   * Long needles are searched with {@link Horspool} in CharSequence inputs other than String.
+   * Strings keep using the JVM-intrinsified {@code String#indexOf()} and {@code lastIndexOf()}.
+   */
+  private static final int MIN_NEEDLE_LENGTH_FOR_HORSPOOL = 32;
+
   /** {@code Pattern} that never matches any substring. */
   public static final Pattern NONE = new Pattern() {
-    @Override Match match(String s, int fromIndex) {
+    @Override Match match(CharSequence s, int fromIndex) {
       requireNonNull(s);
       return null;
     }
@@ -389,7 +411,7 @@ public final class Substring {
    */
   public static final Pattern BEGINNING =
       new Pattern() {
-        @Override Match match(String str, int fromIndex) {
+        @Override Match match(CharSequence str, int fromIndex) {
           return Match.nonBacktrackable(str, fromIndex, 0);
         }
 
@@ -410,7 +432,7 @@ public final class Substring {
    */
   public static final Pattern END =
       new Pattern() {
-        @Override Match match(String str, int fromIndex) {
+        @Override Match match(CharSequence str, int fromIndex) {
           return Match.suffix(str, 0);
         }
 
@@ -468,9 +490,9 @@ public final class Substring {
     if (str.length() == 1) {
       return first(str.charAt(0));
     }
-    return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
-        int index = input.indexOf(str, fromIndex);
+    return new FirstLiteral(str) {
+      @Override Match match(CharSequence input, int fromIndex) {
+        int index = indexIn(input, fromIndex);
         return index >= fromIndex ? Match.backtrackable(1, input, index, str.length()) : null;
       }
 
@@ -493,9 +515,9 @@ public final class Substring {
 
   /** Returns a {@code Pattern} that matches the first occurrence of {@code character}. */
   public static Pattern first(char character) {
-    return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
-        int index = input.indexOf(character, fromIndex);
+    return new FirstLiteral(Character.toString(character)) {
+      @Override Match match(CharSequence input, int fromIndex) {
+        int index = indexOf(input, character, fromIndex);
         return index >= 0 ? Match.backtrackable(1, input, index, 1) : null;
       }
 
@@ -518,9 +540,13 @@ public final class Substring {
    * @since 6.0
    */
   public static Pattern first(CharPredicate charMatcher) {
+    int singleChar = CharTable.singleChar(charMatcher);
+    if (singleChar >= 0) {
+      return first((char) singleChar);
+    }
     requireNonNull(charMatcher);
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         for (int i = fromIndex; i < input.length(); i++) {
           if (charMatcher.test(input.charAt(i))) {
             return Match.backtrackable(1, input, i, 1);
@@ -529,6 +555,10 @@ public final class Substring {
         return null;
       }
 
+      @Override boolean searchesForward() {
+        return true;
+      }
+
       @Override public String toString() {
         return "first(" + charMatcher + ")";
       }
@@ -541,9 +571,13 @@ public final class Substring {
    * @since 6.0
    */
   public static Pattern last(CharPredicate charMatcher) {
+    int singleChar = CharTable.singleChar(charMatcher);
+    if (singleChar >= 0) {
+      return last((char) singleChar);
+    }
     requireNonNull(charMatcher);
     return new Last() {
-      @Override Match match(String input, int fromIndex, int endIndex) {
+      @Override Match match(CharSequence input, int fromIndex, int endIndex) {
         for (int i = endIndex - 1; i >= fromIndex; i--) {
           if (charMatcher.test(input.charAt(i))) {
             return Match.nonBacktrackable(input, i, 1);
@@ -617,7 +651,7 @@ public final class Substring {
   public static Pattern leading(CharPredicate matcher) {
     requireNonNull(matcher);
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         int len = 0;
         for (int i = fromIndex; i < input.length(); i++, len++) {
           if (!matcher.test(input.charAt(i))) {
@@ -644,7 +678,7 @@ public final class Substring {
   public static Pattern trailing(CharPredicate matcher) {
     requireNonNull(matcher);
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         int len = 0;
         for (int i = input.length() - 1; i >= fromIndex; i--, len++) {
           if (!matcher.test(input.charAt(i))) {
@@ -678,10 +712,12 @@ public final class Substring {
    */
   public static Pattern consecutive(CharPredicate matcher) {
     requireNonNull(matcher);
+    int singleChar = CharTable.singleChar(matcher);
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         int end = input.length();
-        for (int i = fromIndex; i < end; i++) {
+        int i = singleChar >= 0 ? indexOf(input, (char) singleChar, fromIndex) : fromIndex;
+        for (; i >= 0 && i < end; i++) {
           if (matcher.test(input.charAt(i))) {
             int len = 1;
             for (int j = i + 1; j < end; j++, len++) {
@@ -695,6 +731,10 @@ public final class Substring {
         return null;
       }
 
+      @Override boolean searchesForward() {
+        return true;
+      }
+
       @Override public String toString() {
         return "consecutive(" + matcher + ")";
       }
@@ -755,8 +795,8 @@ public final class Substring {
   public static RepeatingPattern topLevelGroups(java.util.regex.Pattern regexPattern) {
     requireNonNull(regexPattern);
     return new RepeatingPattern() {
-      @Override public Stream<Match> match(String input, int fromIndex) {
-        String string = input.substring(fromIndex);
+      @Override public Stream<Match> match(CharSequence input, int fromIndex) {
+        CharSequence string = input.subSequence(fromIndex, input.length());
         Matcher matcher = regexPattern.matcher(string);
         if (!matcher.find()) return Stream.empty();
         int groups = matcher.groupCount();
@@ -783,6 +823,14 @@ public final class Substring {
         }
       }
 
+      @Override boolean searchesForward() {
+        return true;
+      }
+
+      @Override boolean resumable() {
+        return false;
+      }
+
       @Override public String toString() {
         return "topLevelGroups(" + regexPattern + ")";
       }
@@ -812,7 +860,7 @@ public final class Substring {
       throw new IndexOutOfBoundsException("Capturing group " + group + " doesn't exist.");
     }
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         Matcher matcher = regexPattern.matcher(input);
         if (fromIndex <= input.length() && matcher.find(fromIndex)) {
           int start = matcher.start(group);
@@ -846,6 +894,10 @@ public final class Substring {
         return super.negativeLookaround(lookbehind, lookahead);
       }
 
+      @Override boolean searchesForward() {
+        return true;
+      }
+
       @Override public String toString() {
         return "first(\"" + regexPattern + "\", " + group + ")";
       }
@@ -864,6 +916,10 @@ public final class Substring {
    *         .collect(firstOccurrence());
    * }</pre>
    *
+   * <p>If the candidates are all {@link #first(String)} or {@link #first(char)} literals, they are
+   * compiled into an Aho-Corasick automaton, which scans the input in a single pass regardless of
+   * the number of candidates.
+   *
    * @since 6.1
    */
   public static Collector<Pattern, ?, Pattern> firstOccurrence() {
@@ -882,7 +938,7 @@ public final class Substring {
         this.stableOrder = stableOrder;
       }
 
-      void enqueueNextOccurrence(String input, int fromIndex, Queue<Occurrence> queue) {
+      void enqueueNextOccurrence(CharSequence input, int fromIndex, Queue<Occurrence> queue) {
         Match nextMatch = pattern.match(input, fromIndex);
         if (nextMatch != null) {
           queue.add(new Occurrence(pattern, nextMatch, stableOrder));
@@ -895,10 +951,20 @@ public final class Substring {
     return collectingAndThen(
         toImmutableList(),
         candidates -> {
+          AhoCorasick literals = compileLiterals(candidates);
           return new Pattern() {
             @Override
-            Match match(String input, int fromIndex) {
+            Match match(CharSequence input, int fromIndex) {
               requireNonNull(input);
+              if (literals != null) {
+                long found = literals.find(input, fromIndex);
+                if (found < 0) {
+                  return null;
+                }
+                int keyword = (int) found;
+                return Match.backtrackable(
+                    1, input, (int) (found >>> 32), literals.keywordLength(keyword));
+              }
               Match best = null;
               for (Pattern candidate : candidates) {
                 Match match = candidate.match(input, fromIndex);
@@ -915,7 +981,32 @@ public final class Substring {
               return best;
             }
 
-            @Override Stream<Match> iterate(String input, int fromIndex) {
+            @Override boolean advance(Cursor cursor, CharSequence input, int fromIndex) {
+              if (literals == null) {
+                return super.advance(cursor, input, fromIndex);
+              }
+              long found = literals.find(input, fromIndex);
+              if (found < 0) {
+                return false;
+              }
+              int index = (int) (found >>> 32);
+              int end = index + literals.keywordLength((int) found);
+              cursor.moveTo(index, end, end);
+              return true;
+            }
+
+            @Override Cursor cursor(CharSequence input, int fromIndex) {
+              return literals == null
+                  ? Cursor.over(input, iterate(input, fromIndex).iterator())
+                  : super.cursor(input, fromIndex);
+            }
+
+            @Override Stream<Match> iterate(CharSequence input, int fromIndex) {
+              if (literals != null) {
+                // Literal matches never overlap with their next occurrence, so repeatedly
+                // finding the leftmost occurrence is equivalent to the fast-forwarding below.
+                return super.iterate(input, fromIndex);
+              }
               PriorityQueue<Occurrence> occurrences =
                   new PriorityQueue<>(max(1, candidates.size()), byIndex);
               for (int i = 0; i < candidates.size(); i++) {
@@ -993,6 +1084,10 @@ public final class Substring {
                   .collect(firstOccurrence());
             }
 
+            @Override boolean searchesForward() {
+              return candidates.stream().allMatch(Pattern::searchesForward);
+            }
+
             @Override
             public String toString() {
               return "firstOccurrenceOf(" + candidates + ")";
@@ -1001,6 +1096,29 @@ public final class Substring {
         });
   }
 
+  /**
+   * If {@code candidates} are all non-empty {@code first(String)} or {@code first(char)} literals,
+   * and there are enough of them to outweigh the native {@code String#indexOf()}, returns an
+   * {@link AhoCorasick} automaton that finds the first occurrence of any of them in one pass.
+   */
+  private static AhoCorasick compileLiterals(List<Pattern> candidates) {
+    if (candidates.size() < MIN_LITERALS_FOR_AHO_CORASICK) {
+      return null;
+    }
+    List<String> literals = new ArrayList<>(candidates.size());
+    for (Pattern candidate : candidates) {
+      if (!(candidate instanceof FirstLiteral)) {
+        return null;
+      }
+      String literal = ((FirstLiteral) candidate).literal;
+      if (literal.isEmpty()) {
+        return null;
+      }
+      literals.add(literal);
+    }
+    return new AhoCorasick(literals);
+  }
+
   /**
    * Returns a {@code Pattern} that matches the first occurrence of {@code stop1}, followed by an
    * occurrence of {@code stop2}, followed sequentially by occurrences of {@code moreStops} in
@@ -1027,9 +1145,15 @@ public final class Substring {
     if (str.length() == 1) {
       return last(str.charAt(0));
     }
+    Horspool horspool = str.length() >= MIN_NEEDLE_LENGTH_FOR_HORSPOOL ? new Horspool(str) : null;
     return new Last() {
-      @Override Match match(String input, int fromIndex, int endIndex) {
-        int index = str.isEmpty() ? endIndex : input.lastIndexOf(str, endIndex - 1);
+      @Override Match match(CharSequence input, int fromIndex, int endIndex) {
+        int index =
+            str.isEmpty()
+                ? endIndex
+                : horspool == null || input instanceof String
+                    ? lastIndexOf(input, str, endIndex - 1)
+                    : horspool.lastIndexIn(input, endIndex - 1);
         return index >= fromIndex
             ? Match.nonBacktrackable(input, index, str.length())
             : null;
@@ -1044,8 +1168,8 @@ public final class Substring {
   /** Returns a {@code Pattern} that matches the last occurrence of {@code character}. */
   public static Pattern last(char character) {
     return new Last() {
-      @Override Match match(String input, int fromIndex, int endIndex) {
-        int index = input.lastIndexOf(character, endIndex - 1);
+      @Override Match match(CharSequence input, int fromIndex, int endIndex) {
+        int index = lastIndexOf(input, character, endIndex - 1);
         return index >= fromIndex ? Match.nonBacktrackable(input, index, 1) : null;
       }
 
@@ -1067,7 +1191,7 @@ public final class Substring {
   public static Pattern before(Pattern delimiter) {
     requireNonNull(delimiter);
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         Match match = delimiter.match(input, fromIndex);
         return match == null
             ? null
@@ -1103,7 +1227,7 @@ public final class Substring {
   public static Pattern after(Pattern delimiter) {
     requireNonNull(delimiter);
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         Match match = delimiter.match(input, fromIndex);
         return match == null ? null : match.following();
       }
@@ -1130,7 +1254,7 @@ public final class Substring {
   public static Pattern upToIncluding(Pattern pattern) {
     requireNonNull(pattern);
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         Match match = pattern.match(input, fromIndex);
         return match == null
             ? null
@@ -1222,7 +1346,7 @@ public final class Substring {
     requireNonNull(close);
     requireNonNull(closeBound);
     return new Pattern() {
-      @Override Match match(String input, int fromIndex) {
+      @Override Match match(CharSequence input, int fromIndex) {
         Match left = open.match(input, fromIndex);
         if (left == null) {
           return null;
@@ -1242,6 +1366,11 @@ public final class Substring {
             /*length=*/ len);
       }
 
+      // An anchored close could match after a later open, which this pattern doesn't retry.
+      @Override boolean searchesForward() {
+        return open.searchesForward() && close.searchesForward();
+      }
+
       @Override public String toString() {
         return openBound == BoundStyle.EXCLUSIVE && closeBound == BoundStyle.EXCLUSIVE
             ? "between(" + open + ", " + close + ")"
@@ -1279,6 +1408,36 @@ public final class Substring {
       return Optional.ofNullable(match(string, checkFromIndex(fromIndex, string)));
     }
 
+    /**
+     * Matches this pattern against {@code input}, returning a {@code Match} if successful, or
+     * {@code empty()} otherwise.
+     *
+     * <p>Unlike {@link #in(String)}, the characters of {@code input} aren't copied into a string.
+     * The returned {@code Match} is a view of {@code input}, which can be for example a {@link
+     * java.nio.CharBuffer} over a memory-mapped file. Callers must not mutate {@code input} while
+     * the {@code Match} is in use.
+     *
+     * @since 8.6
+     */
+    public final Optional<Match> in(CharSequence input) {
+      return Optional.ofNullable(match(input, 0));
+    }
+
+    /**
+     * Matches this pattern against {@code input} starting from the character at {@code fromIndex},
+     * returning a {@code Match} if successful, or {@code empty()} otherwise.
+     *
+     * <p>Unlike {@link #in(String, int)}, the characters of {@code input} aren't copied into a
+     * string. The returned {@code Match} is a view of {@code input}.
+     *
+     * @throws IndexOutOfBoundsException if fromIndex is negative or greater than {@code
+     *     input.length()}
+     * @since 8.6
+     */
+    public final Optional<Match> in(CharSequence input, int fromIndex) {
+      return Optional.ofNullable(match(input, checkFromIndex(fromIndex, input)));
+    }
+
     /**
      * Matches this pattern against {@code string}, returning the matched substring if successful,
      * or {@code empty()} otherwise. {@code pattern.from(str)} is equivalent to {@code
@@ -1288,7 +1447,7 @@ public final class Substring {
      * to call {@link Match} methods, like {@link Match#remove} or {@link Match#before}.
      */
     public final Optional<String> from(CharSequence string) {
-      return Optional.ofNullable(Objects.toString(match(string.toString()), null));
+      return Optional.ofNullable(Objects.toString(match(string), null));
     }
 
     /**
@@ -1347,11 +1506,15 @@ public final class Substring {
     public final Pattern toEnd() {
       Pattern base = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           Match match = base.match(input, fromIndex);
           return match == null ? null : match.toEnd();
         }
 
+        @Override boolean searchesForward() {
+          return base.searchesForward();
+        }
+
         @Override public String toString() {
           return base + ".toEnd()";
         }
@@ -1366,7 +1529,7 @@ public final class Substring {
       requireNonNull(that);
       Pattern base = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           Match match = base.match(input, fromIndex);
           return match == null ? that.match(input, fromIndex) : match;
         }
@@ -1402,6 +1565,10 @@ public final class Substring {
           return base.skip(fromBeginning, fromEnd).or(that.skip(fromBeginning, fromEnd));
         }
 
+        @Override boolean searchesForward() {
+          return base.searchesForward() && that.searchesForward();
+        }
+
         @Override public String toString() {
           return base + ".or(" + that + ")";
         }
@@ -1418,17 +1585,25 @@ public final class Substring {
       checkNumChars(maxChars);
       Pattern base = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           Match m = base.match(input, fromIndex);
           return m == null ? null : m.limit(maxChars);
         }
 
         // For, firstOccurrence().limit().repeatedly(), apply firstOccurrence().iterate()
         // and then apply limit() on the result matches to take advantage of the optimization.
-        @Override Stream<Match> iterate(String input, int fromIndex) {
+        @Override Stream<Match> iterate(CharSequence input, int fromIndex) {
           return base.iterate(input, fromIndex).map(m -> m.limit(maxChars));
         }
 
+        @Override Cursor cursor(CharSequence input, int fromIndex) {
+          return Cursor.over(input, iterate(input, fromIndex).iterator());
+        }
+
+        @Override boolean searchesForward() {
+          return base.searchesForward();
+        }
+
         @Override public String toString() {
           return base + ".limit(" + maxChars + ")";
         }
@@ -1449,7 +1624,7 @@ public final class Substring {
       checkNumChars(fromEnd);
       Pattern original = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           Match m = original.match(input, fromIndex);
           return m == null ? null : m.skip(fromBeginning, fromEnd);
         }
@@ -1457,10 +1632,18 @@ public final class Substring {
         // For firstOccurrence().skiip().repeatedly(), apply
         // firstOccurrence().iterate() to take advantage of the optimization and then apply
         // skip() on the result matches.
-        @Override Stream<Match> iterate(String input, int fromIndex) {
+        @Override Stream<Match> iterate(CharSequence input, int fromIndex) {
           return original.iterate(input, fromIndex).map(m -> m.skip(fromBeginning, fromEnd));
         }
 
+        @Override Cursor cursor(CharSequence input, int fromIndex) {
+          return Cursor.over(input, iterate(input, fromIndex).iterator());
+        }
+
+        @Override boolean searchesForward() {
+          return original.searchesForward();
+        }
+
         @Override public String toString() {
           return original + ".skip(" + fromBeginning + ", " + fromEnd + ")";
         }
@@ -1482,7 +1665,7 @@ public final class Substring {
       requireNonNull(following);
       Pattern base = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           Match preceding = base.match(input, fromIndex);
           if (preceding == null) {
             return null;
@@ -1516,6 +1699,10 @@ public final class Substring {
           return base.then(following.negativeLookaround(lookbehind, lookahead));
         }
 
+        @Override boolean searchesForward() {
+          return base.searchesForward() && following.searchesForward();
+        }
+
         @Override public String toString() {
           return base + ".then(" + following + ")";
         }
@@ -1549,7 +1736,7 @@ public final class Substring {
       requireNonNull(following);
       Pattern base = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           Match preceding = base.match(input, fromIndex);
           if (preceding == null) {
             return null;
@@ -1557,6 +1744,10 @@ public final class Substring {
           return following.match(input, preceding.endIndex) == null ? null : preceding;
         }
 
+        @Override boolean searchesForward() {
+          return base.searchesForward() && following.searchesForward();
+        }
+
         @Override public String toString() {
           return base + ".peek(" + following + ")";
         }
@@ -1599,7 +1790,7 @@ public final class Substring {
       requireNonNull(separatorAfter);
       Pattern target = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           while (fromIndex <= input.length()) {
             if (fromIndex > 0 && !separatorBefore.test(input.charAt(fromIndex - 1))) {
               fromIndex++;
@@ -1622,6 +1813,10 @@ public final class Substring {
           return null;
         }
 
+        @Override boolean searchesForward() {
+          return target.searchesForward();
+        }
+
         @Override public String toString() {
           return target + ".separatedBy(" + separatorBefore + ", " + separatorAfter + ")";
         }
@@ -1677,11 +1872,16 @@ public final class Substring {
       Pattern original = this;
       return new Pattern() {
         @Override
-        Match match(String input, int fromIndex) {
+        Match match(CharSequence input, int fromIndex) {
           Match match = withLookaround.match(input, fromIndex);
           return match == null ? null : match.expand(behind, ahead);
         }
 
+        @Override
+        boolean searchesForward() {
+          return withLookaround.searchesForward();
+        }
+
         @Override
         public String toString() {
           return original
@@ -1809,7 +2009,7 @@ public final class Substring {
       requireNonNull(following);
       Pattern base = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           Match preceding = base.match(input, fromIndex);
           if (preceding == null) {
             return null;
@@ -1828,6 +2028,10 @@ public final class Substring {
               Math.max(preceding.repetitionStartIndex, next.repetitionStartIndex));
         }
 
+        @Override boolean searchesForward() {
+          return base.searchesForward() && following.searchesForward();
+        }
+
         @Override public String toString() {
           return base + ".extendTo(" + following + ")";
         }
@@ -1849,7 +2053,7 @@ public final class Substring {
      * @since 5.0
      */
     public final BiOptional<String, String> split(CharSequence string) {
-      Match match = match(string.toString());
+      Match match = match(string);
       return match == null ? BiOptional.empty() : BiOptional.of(match.before(), match.after());
     }
 
@@ -1894,7 +2098,7 @@ public final class Substring {
      * @since 5.0
      */
     public final BiOptional<String, String> splitThenTrim(CharSequence string) {
-      Match match = match(string.toString());
+      Match match = match(string);
       return match == null
           ? BiOptional.empty()
           : BiOptional.of(match.before().trim(), match.after().trim());
@@ -1909,10 +2113,25 @@ public final class Substring {
      */
     public RepeatingPattern repeatedly() {
       return new RepeatingPattern() {
-        @Override public Stream<Match> match(String input, int fromIndex) {
+        @Override public Stream<Match> match(CharSequence input, int fromIndex) {
           return iterate(input, checkFromIndex(fromIndex, input));
         }
 
+        @Override Cursor cursor(CharSequence input, int fromIndex) {
+          return Pattern.this.cursor(input, checkFromIndex(fromIndex, input));
+        }
+
+        @Override boolean searchesForward() {
+          return Pattern.this.searchesForward();
+        }
+
+        @Override public Stream<Match> splitInParallel(CharSequence string) {
+          Spliterator<Match> splitter = Pattern.this.splitter(string);
+          return splitter == null
+              ? super.splitInParallel(string)
+              : StreamSupport.stream(splitter, true);
+        }
+
         @Override public String toString() {
           return Pattern.this + ".repeatedly()";
         }
@@ -1923,10 +2142,65 @@ public final class Substring {
      * Matches against {@code string} starting from {@code fromIndex}, and returns null if not
      * found.
      */
-    abstract Match match(String string, int fromIndex);
+    abstract Match match(CharSequence string, int fromIndex);
+
+    /**
+     * Finds the first match in {@code input} starting from {@code fromIndex} and moves {@code
+     * cursor} to it. Returns false if not found.
+     *
+     * <p>Patterns that can locate a match without allocating a {@link Match} should override.
+     */
+    boolean advance(Cursor cursor, CharSequence input, int fromIndex) {
+      Match match = match(input, fromIndex);
+      if (match == null) {
+        return false;
+      }
+      cursor.moveTo(match);
+      return true;
+    }
+
+    /** Same as {@link #iterate}, but iterates with a reusable cursor. */
+    Cursor cursor(CharSequence input, int fromIndex) {
+      return new Cursor(input) {
+        private int nextIndex = fromIndex;
+
+        @Override public boolean next() {
+          if (nextIndex > input.length() || !advance(this, input, nextIndex)) {
+            nextIndex = Integer.MAX_VALUE;
+            return finish();
+          }
+          if (end == input.length()) { // We've consumed the entire string.
+            nextIndex = Integer.MAX_VALUE;
+          } else if (repetitionStartIndex > nextIndex) {
+            nextIndex = repetitionStartIndex;
+          } else {
+            throw new IllegalStateException("Infinite loop detected at " + repetitionStartIndex);
+          }
+          return true;
+        }
+      };
+    }
+
+    /**
+     * Returns a splittable spliterator of the parts of {@code input} split by this pattern, or null
+     * if this pattern can't be resynchronized from an arbitrary index.
+     */
+    Spliterator<Match> splitter(CharSequence input) {
+      return null;
+    }
+
+    /**
+     * Returns true if {@link #match} searches forward from {@code fromIndex} for the leftmost match,
+     * such that when there is no match in {@code [fromIndex, i)}, matching from {@code i} finds the
+     * same result. Returns false for patterns anchored at {@code fromIndex}, like {@link #BEGINNING}
+     * or {@link Substring#prefix}, and for patterns whose behavior is unknown.
+     */
+    boolean searchesForward() {
+      return false;
+    }
 
     /** Applies this pattern repeatedly against {@code input} and returns all iterations. */
-    Stream<Match> iterate(String input, int fromIndex) {
+    Stream<Match> iterate(CharSequence input, int fromIndex) {
       return MoreStreams.whileNotNull(
           new Supplier<Match>() {
             private final int end = input.length();
@@ -1953,14 +2227,14 @@ public final class Substring {
           });
     }
 
-    private Match match(String string) {
+    private Match match(CharSequence string) {
       return match(string, 0);
     }
 
     Pattern lookaround(String lookbehind, String lookahead) {
       Pattern target = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           int lastIndex = input.length() - lookahead.length();
           while (fromIndex <= lastIndex) {
             Match match = target.match(input, fromIndex);
@@ -1972,6 +2246,10 @@ public final class Substring {
           return null;
         }
 
+        @Override boolean searchesForward() {
+          return target.searchesForward();
+        }
+
         @Override public String toString() {
           return target + ".immediatelyBetween('" + lookbehind + "', '" + lookahead + "')";
         }
@@ -1981,7 +2259,7 @@ public final class Substring {
     Pattern negativeLookaround(String lookbehind, String lookahead) {
       Pattern target = this;
       return new Pattern() {
-        @Override Match match(String input, int fromIndex) {
+        @Override Match match(CharSequence input, int fromIndex) {
           while (fromIndex <= input.length()) {
             Match match = target.match(input, fromIndex);
             if (match == null || !match.isImmediatelyBetween(lookbehind, lookahead)) {
@@ -1992,6 +2270,10 @@ public final class Substring {
           return null;
         }
 
+        @Override boolean searchesForward() {
+          return target.searchesForward();
+        }
+
         @Override public String toString() {
           return target + ".notImmediatelyBetween('" + lookbehind + "', '" + lookahead + "')";
         }
@@ -2033,7 +2315,24 @@ public final class Substring {
      *     {@code input.length()}
      * @since 8.2
      */
-    public abstract Stream<Match> match(String input, int fromIndex);
+    public final Stream<Match> match(String input, int fromIndex) {
+      return match((CharSequence) input, fromIndex);
+    }
+
+    /**
+     * Applies this pattern against {@code input} starting from {@code fromIndex} and returns a
+     * stream of each iteration.
+     *
+     * <p>Unlike {@link #match(String, int)}, the characters of {@code input} aren't copied into a
+     * string. The returned {@code Match} objects are views of {@code input}, which can be for
+     * example a {@link java.nio.CharBuffer} over a memory-mapped file. Callers must not mutate
+     * {@code input} while the stream or the {@code Match} objects are in use.
+     *
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative or greater than
+     *     {@code input.length()}
+     * @since 8.6
+     */
+    public abstract Stream<Match> match(CharSequence input, int fromIndex);
 
     /**
      * Applies this pattern against {@code string} and returns a stream of each iteration.
@@ -2053,6 +2352,19 @@ public final class Substring {
       return match(input, 0);
     }
 
+    /**
+     * Applies this pattern against {@code input} and returns a stream of each iteration.
+     *
+     * <p>Unlike {@link #match(String)}, the characters of {@code input} aren't copied into a
+     * string. The returned {@code Match} objects are views of {@code input}. Callers must not
+     * mutate {@code input} while the stream or the {@code Match} objects are in use.
+     *
+     * @since 8.6
+     */
+    public final Stream<Match> match(CharSequence input) {
+      return match(input, 0);
+    }
+
     /**
      * Applies this pattern against {@code string} and returns a stream of each iteration.
      *
@@ -2068,7 +2380,121 @@ public final class Substring {
      * <p>An empty stream is returned if this pattern has no matches in the {@code input} string.
      */
     public Stream<String> from(CharSequence input) {
-      return match(input.toString()).map(Match::toString);
+      return match(input).map(Match::toString);
+    }
+
+    /**
+     * Returns a {@link Cursor} over the matches of this pattern in {@code input}, in the same order
+     * as {@link #match(String)}.
+     *
+     * <p>Unlike {@link #match(String)}, the cursor reuses the same mutable position instead of
+     * creating a {@link Match} for each iteration. Literal patterns such as {@code all(",")} or
+     * {@code first("foo").repeatedly()} iterate without any allocation per match. For example:
+     *
+     * <pre>{@code
+     * Substring.Cursor cursor = all(',').cursor(csvLine);
+     * while (cursor.next()) {
+     *   commaIndexes.add(cursor.start());
+     * }
+     * }</pre>
+     *
+     * @since 8.6
+     */
+    public Cursor cursor(CharSequence input) {
+      return cursor(input, 0);
+    }
+
+    /**
+     * Applies this pattern against {@code input} starting from {@code fromIndex}, as a lazy stream
+     * of the matched substrings.
+     *
+     * <p>Characters are read from {@code input} in chunks, so that arbitrarily large input (log
+     * files, data dumps etc.) can be scanned in bounded memory. Matches spanning chunk boundaries
+     * are still found. For this to work, no match can be longer than {@code maxMatchLength}, and
+     * the pattern must not need to look more than {@code maxMatchLength} characters behind or
+     * ahead of a match. Patterns anchored to the end of input (such as {@code last()}, {@code
+     * suffix()} or {@code END}) can't be resolved until the end of {@code input} is reached.
+     * Patterns anchored at the scanning position (such as {@code prefix()} or {@code BEGINNING})
+     * match exactly as they do against a string, but retain the input until they match. The same
+     * goes for patterns that can't skip ahead when there is no match, such as {@code before()},
+     * {@code after()}, {@code upToIncluding()}, or {@code between()} with an anchored {@code close};
+     * these need memory proportional to the distance to the next match. Patterns searching
+     * forward, such as {@code first()}, {@code between()}, {@code spanningInOrder()} and {@code
+     * word()}, only keep the last {@code maxMatchLength} characters when there is no match.
+     *
+     * <p>{@code input} isn't closed when the returned stream is consumed. IOException from
+     * {@code input} is thrown as {@link java.io.UncheckedIOException}.
+     *
+     * @throws IllegalArgumentException if {@code maxMatchLength} isn't positive
+     * @throws UnsupportedOperationException if this is a one-shot {@link Substring#topLevelGroups}
+     *     pattern, which can't be resumed window by window
+     * @since 8.6
+     */
+    public Stream<String> from(Reader input, int maxMatchLength) {
+      WindowedScanner scanner = new WindowedScanner(this, input, maxMatchLength);
+      return whileNotNull(
+          () -> scanner.next() ? scanner.substring(scanner.start(), scanner.end()) : null);
+    }
+
+    /**
+     * Returns a lazy stream of the substrings of {@code input} delimited by every match of this
+     * pattern. If this pattern isn't found, the full input is returned as a single string.
+     *
+     * <p>Characters are read from {@code input} in chunks, with only the current part and a
+     * window of {@code maxDelimiterLength} characters buffered in memory. Delimiters spanning
+     * chunk boundaries are still found, as long as no delimiter is longer than {@code
+     * maxDelimiterLength}. Delimiters are found the same way as {@link #from(Reader, int)}, so the
+     * memory bound only holds for patterns that search forward.
+     *
+     * <p>{@code input} isn't closed when the returned stream is consumed. IOException from
+     * {@code input} is thrown as {@link java.io.UncheckedIOException}.
+     *
+     * @throws IllegalArgumentException if {@code maxDelimiterLength} isn't positive
+     * @throws UnsupportedOperationException if this is a one-shot {@link Substring#topLevelGroups}
+     *     pattern
+     * @since 8.6
+     */
+    public Stream<String> split(Reader input, int maxDelimiterLength) {
+      WindowedScanner delimiters = new WindowedScanner(this, input, maxDelimiterLength);
+      delimiters.mark(0);
+      return whileNotNull(
+          new Supplier<String>() {
+            long next = 0;
+
+            @Override public String get() {
+              if (next >= 0 && delimiters.next()) {
+                String part = delimiters.substring(next, delimiters.start());
+                next = delimiters.end();
+                delimiters.mark(next);
+                return part;
+              }
+              if (next >= 0) {
+                String part = delimiters.remaining(next);
+                next = -1;
+                return part;
+              }
+              return null;
+            }
+          });
+    }
+
+    /** Same as {@link #cursor(CharSequence)}, but starts from {@code fromIndex}. */
+    Cursor cursor(CharSequence input, int fromIndex) {
+      return Cursor.over(input, match(input, fromIndex).iterator());
+    }
+
+    /** See {@link Pattern#searchesForward}. */
+    boolean searchesForward() {
+      return false;
+    }
+
+    /**
+     * Returns true if matching again from where the last match left off continues the same
+     * sequence of matches, which is how a {@link Reader} is scanned window by window. Returns false
+     * for one-shot patterns like {@link Substring#topLevelGroups}.
+     */
+    boolean resumable() {
+      return true;
     }
 
     /**
@@ -2089,29 +2515,112 @@ public final class Substring {
     public String replaceAllFrom(
         String string, Function<? super Match, ? extends CharSequence> replacementFunction) {
       requireNonNull(replacementFunction);
-      Iterator<Match> matches = match(string).iterator();
-      if (!matches.hasNext()) {
+      Cursor cursor = cursor(string);
+      if (!cursor.next()) {
         return string;
       }
       // Add the chars between the previous and current match.
       StringBuilder builder = new StringBuilder(string.length());
       int index = 0;
       do {
-        Match match = matches.next();
+        Match match = cursor.toMatch();
         CharSequence replacement = replacementFunction.apply(match);
         if (replacement == null) {
           throw new NullPointerException("No replacement is returned for " + match);
         }
         builder
-            .append(string, index, match.startIndex)
+            .append(string, index, cursor.start)
             .append(replacement);
-        index = match.endIndex;
-      } while (matches.hasNext());
+        index = cursor.end;
+      } while (cursor.next());
 
       // Add the remaining chars
       return builder.append(string, index, string.length()).toString();
     }
 
+    /**
+     * Writes {@code string} with all {@link #match matches} of this pattern replaced by applying
+     * {@code replacementFunction} for each match to {@code output}, and returns {@code output}.
+     * Unlike {@link #replaceAllFrom(String, Function)}, the result is written incrementally instead
+     * of being built up in memory.
+     *
+     * <p>{@code replacementFunction} must not return null.
+     *
+     * @throws IOException if thrown by {@code output}
+     * @since 8.6
+     */
+    public <A extends Appendable> A replaceAllFrom(
+        String string,
+        Function<? super Match, ? extends CharSequence> replacementFunction,
+        A output)
+        throws IOException {
+      requireNonNull(replacementFunction);
+      requireNonNull(output);
+      Cursor cursor = cursor(string);
+      int index = 0;
+      while (cursor.next()) {
+        Match match = cursor.toMatch();
+        CharSequence replacement = replacementFunction.apply(match);
+        if (replacement == null) {
+          throw new NullPointerException("No replacement is returned for " + match);
+        }
+        output.append(string, index, cursor.start).append(replacement);
+        index = cursor.end;
+      }
+      output.append(string, index, string.length());
+      return output;
+    }
+
+    /**
+     * Reads from {@code input} and writes it to {@code output} with all matches of this pattern
+     * replaced by applying {@code replacementFunction} for each match. Returns {@code output}.
+     *
+     * <p>Characters are read and written in chunks, so that arbitrarily large input (such as data
+     * dumps to be redacted) can be rewritten in memory proportional to the chunk size. Matches
+     * are found the same way as {@link #from(Reader, int)}: no match can be longer than {@code
+     * maxMatchLength}.
+     *
+     * <p>Since the chunk holding a match is discarded once the scan moves on, the {@code Match}
+     * passed to {@code replacementFunction} is a copy of just the matched characters: {@link
+     * Match#before} and {@link Match#after} are empty, and {@link Match#index} is 0.
+     *
+     * <p>{@code replacementFunction} must not return null. Neither {@code input} nor {@code output}
+     * is closed.
+     *
+     * @throws IllegalArgumentException if {@code maxMatchLength} isn't positive
+     * @throws UnsupportedOperationException if this is a one-shot {@link Substring#topLevelGroups}
+     *     pattern
+     * @throws IOException if thrown by {@code input} or {@code output}
+     * @since 8.6
+     */
+    public <A extends Appendable> A replaceAllFrom(
+        Reader input,
+        int maxMatchLength,
+        Function<? super Match, ? extends CharSequence> replacementFunction,
+        A output)
+        throws IOException {
+      requireNonNull(input);
+      requireNonNull(replacementFunction);
+      requireNonNull(output);
+      WindowedScanner scanner = new WindowedScanner(this, input, maxMatchLength);
+      scanner.replaceTo(output);
+      try {
+        while (scanner.next()) {
+          String matched = scanner.substring(scanner.start(), scanner.end());
+          Match match = Match.nonBacktrackable(matched, 0, matched.length());
+          CharSequence replacement = replacementFunction.apply(match);
+          if (replacement == null) {
+            throw new NullPointerException("No replacement is returned for " + matched);
+          }
+          scanner.replace(replacement);
+        }
+        scanner.finishReplacing();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      return output;
+    }
+
     /**
      * Returns a stream of {@code Match} objects delimited by every match of this pattern. If this
      * pattern isn't found in {@code string}, the full string is matched.
@@ -2122,16 +2631,30 @@ public final class Substring {
      * com.google.common.base.CharMatcher.trimFrom()} and {@link Pattern#splitThenTrim} etc.
      */
     public Stream<Match> split(String string) {
+      return split((CharSequence) string);
+    }
+
+    /**
+     * Returns a stream of {@code Match} objects delimited by every match of this pattern. If this
+     * pattern isn't found in {@code string}, the full string is matched.
+     *
+     * <p>Unlike {@link #split(String)}, the characters of {@code string} aren't copied. The
+     * returned {@code Match} objects are views of {@code string}, which can be for example a
+     * {@link java.nio.CharBuffer} over a memory-mapped file. Callers must not mutate {@code string}
+     * while the stream or the {@code Match} objects are in use.
+     *
+     * @since 8.6
+     */
+    public Stream<Match> split(CharSequence string) {
       return MoreStreams.whileNotNull(
           new Supplier<Match>() {
             int next = 0;
-            Iterator<Match> it = match(string).iterator();
+            Cursor delimiters = cursor(string);
 
             @Override public Match get() {
-              if (it.hasNext()) {
-                Match delim = it.next();
-                Match result = Match.nonBacktrackable(string, next, delim.index() - next);
-                next = delim.endIndex;
+              if (next >= 0 && delimiters.next()) {
+                Match result = Match.nonBacktrackable(string, next, delimiters.start - next);
+                next = delimiters.end;
                 return result;
               }
               if (next >= 0) {
@@ -2145,6 +2668,29 @@ public final class Substring {
           });
     }
 
+    /**
+     * Returns a parallel stream of {@code Match} objects delimited by every match of this pattern,
+     * with the same parts in the same encounter order as {@link #split(CharSequence)}.
+     *
+     * <p>For single-char or literal delimiters such as {@code first(',').repeatedly()} or {@code
+     * all("\r\n")}, the returned stream partitions {@code string} into regions at delimiter
+     * occurrences, so that each fork-join worker scans its own region. This can speed up splitting
+     * very large input such as a multi-megabyte CSV. For example:
+     *
+     * <pre>{@code
+     * long nonEmptyLines = all('\n').splitInParallel(csv).filter(line -> !line.isEmpty()).count();
+     * }</pre>
+     *
+     * <p>Other patterns, as well as literals that can overlap with themselves (such as {@code
+     * "aa"}), can't be resynchronized from the middle of the input, and are split sequentially
+     * before the parts are handed to the parallel stream.
+     *
+     * @since 8.6
+     */
+    public Stream<Match> splitInParallel(CharSequence string) {
+      return split(string).parallel();
+    }
+
     /**
      * Returns a stream of {@code Match} objects delimited by every match of this pattern. with
      * whitespaces trimmed.
@@ -2158,6 +2704,67 @@ public final class Substring {
       return split(string).map(Match::trim);
     }
 
+    /**
+     * Returns the boundaries of the parts of {@code string} delimited by every match of this
+     * pattern, in the same order as {@link #split(CharSequence)}, packed as {@code [start0, end0,
+     * start1, end1, ...]}. For example:
+     *
+     * <pre>{@code
+     * int[] fields = first(',').repeatedly().splitOffsets(csvLine);
+     * for (int i = 0; i < fields.length; i += 2) {
+     *   parseColumn(i / 2, csvLine, fields[i], fields[i + 1]);
+     * }
+     * }</pre>
+     *
+     * <p>Unlike {@link #split(CharSequence)}, no object is created per part, so it's suitable for
+     * columnar parsers that only need the field boundaries. The length of the returned array is
+     * always twice the number of parts.
+     *
+     * @since 8.6
+     */
+    public int[] splitOffsets(CharSequence string) {
+      return splitOffsets(string, false);
+    }
+
+    /**
+     * Same as {@link #splitOffsets}, but with the whitespaces around each part excluded from its
+     * boundaries, as {@link #splitThenTrim} does.
+     *
+     * @since 8.6
+     */
+    public int[] splitThenTrimOffsets(CharSequence string) {
+      return splitOffsets(string, true);
+    }
+
+    private int[] splitOffsets(CharSequence string, boolean trim) {
+      Cursor delimiters = cursor(string);
+      int[] offsets = new int[16];
+      int size = 0;
+      int next = 0;
+      for (boolean more = true; more; ) {
+        more = delimiters.next();
+        int start = next;
+        int end = more ? delimiters.start : string.length();
+        if (more) {
+          next = delimiters.end;
+        }
+        if (trim) {
+          while (start < end && Character.isWhitespace(string.charAt(start))) {
+            start++;
+          }
+          while (end > start && Character.isWhitespace(string.charAt(end - 1))) {
+            end--;
+          }
+        }
+        if (size == offsets.length) {
+          offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        offsets[size++] = start;
+        offsets[size++] = end;
+      }
+      return size == offsets.length ? offsets : Arrays.copyOf(offsets, size);
+    }
+
     /**
      * Returns a stream of {@code Match} objects from the input {@code string} as demarcated by this
      * delimiter pattern. It's similar to {@link #split} but includes both the substrings split by
@@ -2180,10 +2787,10 @@ public final class Substring {
      * @since 7.1
      */
     public Stream<Match> cut(String string) {
-      Iterator<Match> delimiters = match(string).iterator();
+      Cursor delimiters = cursor(string);
       return whileNotNull(
           new Supplier<Match>() {
-            Match delimiter = null;
+            boolean atDelimiter = false;
             int next = 0;
 
             @Override
@@ -2191,11 +2798,11 @@ public final class Substring {
               if (next == -1) {
                 return null;
               }
-              if (delimiter == null) { // Should return the substring before the next delimiter.
-                if (delimiters.hasNext()) {
-                  delimiter = delimiters.next();
-                  Match result = Match.nonBacktrackable(string, next, delimiter.index() - next);
-                  next = delimiter.endIndex;
+              if (!atDelimiter) { // Should return the substring before the next delimiter.
+                if (delimiters.next()) {
+                  atDelimiter = true;
+                  Match result = Match.nonBacktrackable(string, next, delimiters.start - next);
+                  next = delimiters.end;
                   return result;
                 } else {
                   Match result = Match.nonBacktrackable(string, next, string.length() - next);
@@ -2204,9 +2811,8 @@ public final class Substring {
                 }
               }
               // should return delimiter
-              Match result = delimiter;
-              delimiter = null;
-              return result;
+              atDelimiter = false;
+              return delimiters.toMatch();
             }
           });
     }
@@ -2259,13 +2865,37 @@ public final class Substring {
     public final BiStream<String, String> splitKeyValuesAround(
         Pattern keyValueSeparator, String input) {
       requireNonNull(keyValueSeparator);
-      return BiStream.from(
-          split(input)
-              .filter(m -> m.length() > 0)
-              .map(m -> keyValueSeparator
-                  .split(m)
-                  .orElseThrow(
-                      () -> new IllegalArgumentException("Cannot split key values from '" + m + "'"))));
+      Cursor delimiters = cursor(input);
+      return BiStream.fromEntries(
+          whileNotNull(
+              new Supplier<Map.Entry<String, String>>() {
+                int next = 0;
+
+                @Override public Map.Entry<String, String> get() {
+                  while (next >= 0) {
+                    int from = next;
+                    int to;
+                    if (delimiters.next()) {
+                      to = delimiters.start;
+                      next = delimiters.end;
+                    } else {
+                      to = input.length();
+                      next = -1;
+                    }
+                    if (to > from) {
+                      String part = input.substring(from, to);
+                      Match separator = keyValueSeparator.match(part, 0);
+                      if (separator == null) {
+                        throw new IllegalArgumentException(
+                            "Cannot split key values from '" + part + "'");
+                      }
+                      return new AbstractMap.SimpleImmutableEntry<>(
+                          separator.before(), separator.after());
+                    }
+                  }
+                  return null;
+                }
+              }));
     }
 
     /**
@@ -2353,6 +2983,115 @@ public final class Substring {
     RepeatingPattern() {}
   }
 
+  /**
+   * A mutable cursor over the successive matches of a {@link RepeatingPattern} in an input string,
+   * as returned by {@link RepeatingPattern#cursor}.
+   *
+   * <p>Each call to {@link #next} moves the cursor to the next match, whose boundaries are then
+   * available through {@link #start} and {@link #end}. No {@link Match} object is created unless
+   * {@link #toMatch} is called.
+   *
+   * <p>Cursors are stateful and not thread safe. They should be used within the scope of a method.
+   *
+   * @since 8.6
+   */
+  public abstract static class Cursor {
+    final CharSequence input;
+    int start = -1;
+    int end = -1;
+    int repetitionStartIndex = -1;
+    private Match current;
+
+    Cursor(CharSequence input) {
+      this.input = requireNonNull(input);
+    }
+
+    static Cursor over(CharSequence input, Iterator<Match> matches) {
+      return new Cursor(input) {
+        @Override public boolean next() {
+          if (!matches.hasNext()) {
+            return finish();
+          }
+          moveTo(matches.next());
+          return true;
+        }
+      };
+    }
+
+    /**
+     * Moves to the next match. Returns false if there are no more matches, after which the
+     * cursor no longer points to a match.
+     */
+    public abstract boolean next();
+
+    /**
+     * Returns the index of the current match in the input string.
+     *
+     * @throws IllegalStateException if {@link #next} hasn't been called or has returned false
+     */
+    public final int start() {
+      checkAtMatch();
+      return start;
+    }
+
+    /**
+     * Returns the index after the last character of the current match in the input string.
+     *
+     * @throws IllegalStateException if {@link #next} hasn't been called or has returned false
+     */
+    public final int end() {
+      checkAtMatch();
+      return end;
+    }
+
+    /**
+     * Returns a {@link Match} view of the current match.
+     *
+     * @throws IllegalStateException if {@link #next} hasn't been called or has returned false
+     */
+    public final Match toMatch() {
+      checkAtMatch();
+      Match match = current;
+      if (match == null) {
+        current = match = Match.nonBacktrackable(input, start, end - start);
+      }
+      return match;
+    }
+
+    /**
+     * Returns the current matched substring, or a description of the cursor if it isn't at a match
+     * (because {@link #next} hasn't been called or has returned false).
+     */
+    @Override public String toString() {
+      return start < 0 ? "<cursor not at a match>" : input.subSequence(start, end).toString();
+    }
+
+    final void moveTo(int start, int end, int repetitionStartIndex) {
+      this.start = start;
+      this.end = end;
+      this.repetitionStartIndex = repetitionStartIndex;
+      this.current = null;
+    }
+
+    final void moveTo(Match match) {
+      this.start = match.startIndex;
+      this.end = match.endIndex;
+      this.repetitionStartIndex = match.repetitionStartIndex;
+      this.current = match;
+    }
+
+    final boolean finish() {
+      moveTo(-1, -1, -1);
+      return false;
+    }
+
+    private void checkAtMatch() {
+      if (start < 0) {
+        throw new IllegalStateException("Cursor isn't at a match.");
+      }
+    }
+  }
+
   /**
    * An immutable string prefix {@code Pattern} with extra utilities such as {@link
    * #addToIfAbsent(String)}, {@link #removeFrom(StringBuilder)}, {@link #isIn(CharSequence)} etc.
@@ -2499,8 +3238,8 @@ public final class Substring {
       return prefix;
     }
 
-    @Override Match match(String input, int fromIndex) {
-      return input.startsWith(prefix, fromIndex)
+    @Override Match match(CharSequence input, int fromIndex) {
+      return startsWith(input, prefix, fromIndex)
           ? Match.nonBacktrackable(input, fromIndex, prefix.length())
           : null;
     }
@@ -2654,9 +3393,9 @@ public final class Substring {
       return suffix;
     }
 
-    @Override Match match(String input, int fromIndex) {
+    @Override Match match(CharSequence input, int fromIndex) {
       int index = input.length() - suffix.length();
-      return index >= fromIndex && input.endsWith(suffix)
+      return index >= fromIndex && startsWith(input, suffix, index)
           ? Match.suffix(input, suffix.length())
           : null;
     }
@@ -2668,13 +3407,13 @@ public final class Substring {
    * {@link #after after} it, and to copies with the matched substring {@link #remove removed} or
    * {@link #replaceWith replaced}.
    *
-   * <p><em>Note:</em> a {@link Match} is a view of the original string and holds a strong reference
-   * to the original string. It's advisable to construct and use a {@code Match} object within the
+   * <p><em>Note:</em> a {@link Match} is a view of the original string (or {@link CharSequence})
+   * and holds a strong reference to it. It's advisable to construct and use a {@code Match} object within the
    * scope of a method; holding onto a {@code Match} object has the same risk of leaking memory as
    * holding onto the string it was produced from.
    */
   public static final class Match implements CharSequence {
-    private final String context;
+    private final CharSequence context;
     private final int startIndex;
     private final int endIndex;
 
@@ -2691,7 +3430,7 @@ public final class Substring {
 
     private String toString;
 
-    private Match(String context, int startIndex, int length, int backtrackIndex, int repetitionStartIndex) {
+    private Match(CharSequence context, int startIndex, int length, int backtrackIndex, int repetitionStartIndex) {
       this.context = context;
       this.startIndex = startIndex;
       this.endIndex = startIndex + length;
@@ -2703,16 +3442,16 @@ public final class Substring {
       assert repetitionStartIndex >= endIndex : "Invalid repetitionStartIndex: " + repetitionStartIndex;
     }
 
-    static Match suffix(String context, int length) {
+    static Match suffix(CharSequence context, int length) {
       return nonBacktrackable(context, context.length() - length, length);
     }
 
-    static Match backtrackable(int backtrackingOffset, String context, int fromIndex, int length) {
+    static Match backtrackable(int backtrackingOffset, CharSequence context, int fromIndex, int length) {
       return new Match(
           context, fromIndex, length, fromIndex + backtrackingOffset, fromIndex + max(1, length));
     }
 
-    static Match nonBacktrackable(String context, int fromIndex, int length) {
+    static Match nonBacktrackable(CharSequence context, int fromIndex, int length) {
       return new Match(context, fromIndex, length, Integer.MAX_VALUE, fromIndex + max(1, length));
     }
 
@@ -2729,7 +3468,7 @@ public final class Substring {
      * </pre>
      */
     public String before() {
-      return context.substring(0, startIndex);
+      return context.subSequence(0, startIndex).toString();
     }
 
     /**
@@ -2745,12 +3484,17 @@ public final class Substring {
      * </pre>
      */
     public String after() {
-      return context.substring(endIndex);
+      return context.subSequence(endIndex, context.length()).toString();
     }
 
-    /** Return the full string being matched against. */
+    /**
+     * Return the full string being matched against.
+     *
+     * <p>If the match was against a {@link CharSequence} other than {@code String}, its characters
+     * are copied into the returned string.
+     */
     public String fullString() {
-      return context;
+      return context.toString();
     }
 
     /**
@@ -2844,7 +3588,7 @@ public final class Substring {
      * @since 7.1
      */
     public boolean contentEquals(String str) {
-      return str.length() == length() && context.startsWith(str, startIndex);
+      return str.length() == length() && Substring.startsWith(context, str, startIndex);
     }
 
     /**
@@ -2853,7 +3597,7 @@ public final class Substring {
      * @since 7.0
      */
     public boolean startsWith(String prefix) {
-      return prefix.length() <= length() && context.startsWith(prefix, startIndex);
+      return prefix.length() <= length() && Substring.startsWith(context, prefix, startIndex);
     }
 
     /**
@@ -2862,7 +3606,7 @@ public final class Substring {
      * @since 7.0
      */
     public boolean endsWith(String suffix) {
-      return suffix.length() <= length() && context.startsWith(suffix, endIndex - suffix.length());
+      return suffix.length() <= length() && Substring.startsWith(context, suffix, endIndex - suffix.length());
     }
 
     /**
@@ -2871,7 +3615,7 @@ public final class Substring {
      */
 
     public boolean isFollowedBy(String lookahead) {
-      return context.startsWith(lookahead, endIndex);
+      return Substring.startsWith(context, lookahead, endIndex);
     }
 
     /**
@@ -2879,7 +3623,7 @@ public final class Substring {
      * isPrecededBy("")} is always true.
      */
     public boolean isPrecededBy(String lookbehind) {
-      return context.startsWith(lookbehind, startIndex - lookbehind.length());
+      return Substring.startsWith(context, lookbehind, startIndex - lookbehind.length());
     }
 
     /**
@@ -2948,7 +3692,7 @@ public final class Substring {
       // http://jeremymanson.blogspot.com/2008/12/benign-data-races-in-java.html
       String str = toString;
       if (str == null) {
-        toString = str = context.substring(startIndex, endIndex);
+        toString = str = context.subSequence(startIndex, endIndex).toString();
       }
       return str;
     }
@@ -3025,10 +3769,120 @@ public final class Substring {
     EXCLUSIVE;
   }
 
+  /** Pattern that finds the first occurrence of a literal string. */
+  private abstract static class FirstLiteral extends Pattern {
+    final String literal;
+    private final Horspool horspool; // Skip tables are built once and reused by each match.
+
+    FirstLiteral(String literal) {
+      this.literal = literal;
+      this.horspool =
+          literal.length() >= MIN_NEEDLE_LENGTH_FOR_HORSPOOL ? new Horspool(literal) : null;
+    }
+
+    final int indexIn(CharSequence input, int fromIndex) {
+      return horspool == null || input instanceof String
+          ? indexOf(input, literal, fromIndex)
+          : horspool.indexIn(input, fromIndex);
+    }
+
+    @Override boolean advance(Cursor cursor, CharSequence input, int fromIndex) {
+      int index = indexIn(input, fromIndex);
+      if (index < fromIndex) {
+        return false;
+      }
+      int end = index + literal.length();
+      cursor.moveTo(index, end, index + max(1, literal.length()));
+      return true;
+    }
+
+    @Override Spliterator<Match> splitter(CharSequence input) {
+      return canOverlap(literal) ? null : new LiteralSplitter(this, input, 0, input.length());
+    }
+
+    @Override boolean searchesForward() {
+      return !literal.isEmpty(); // first("") is anchored at fromIndex
+    }
+
+    /**
+     * Returns true if two occurrences of {@code literal} can overlap, in which case not every
+     * occurrence is a match when scanning left to right.
+     */
+    private static boolean canOverlap(String literal) {
+      if (literal.isEmpty()) {
+        return true;
+      }
+      for (int i = 1; i < literal.length(); i++) {
+        if (literal.regionMatches(0, literal, i, literal.length() - i)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Splits the region of {@code [partStart, limit)} by a literal delimiter that can't overlap with
+   * itself, where {@code limit} is either the end of input or the index of a delimiter. Because
+   * occurrences never overlap, the first occurrence found from any index is a delimiter in the
+   * sequential split too, and is used as the boundary to split the region.
+   */
+  private static final class LiteralSplitter implements Spliterator<Match> {
+    private static final int MIN_SPLIT_SIZE = 8192;
+
+    private final FirstLiteral delimiter;
+    private final CharSequence input;
+    private int partStart; // -1 when done
+    private final int limit;
+
+    LiteralSplitter(FirstLiteral delimiter, CharSequence input, int partStart, int limit) {
+      this.delimiter = delimiter;
+      this.input = input;
+      this.partStart = partStart;
+      this.limit = limit;
+    }
+
+    @Override public boolean tryAdvance(Consumer<? super Match> action) {
+      if (partStart < 0) {
+        return false;
+      }
+      int index = delimiter.indexIn(input, partStart);
+      if (index >= 0 && index < limit) {
+        action.accept(Match.nonBacktrackable(input, partStart, index - partStart));
+        partStart = index + delimiter.literal.length();
+      } else {
+        action.accept(Match.nonBacktrackable(input, partStart, limit - partStart));
+        partStart = -1;
+      }
+      return true;
+    }
+
+    @Override public Spliterator<Match> trySplit() {
+      if (partStart < 0 || limit - partStart < MIN_SPLIT_SIZE) {
+        return null;
+      }
+      int boundary = delimiter.indexIn(input, partStart + (limit - partStart) / 2);
+      if (boundary < 0 || boundary >= limit) {
+        return null;
+      }
+      Spliterator<Match> prefix = new LiteralSplitter(delimiter, input, partStart, boundary);
+      partStart = boundary + delimiter.literal.length();
+      return prefix;
+    }
+
+    @Override public long estimateSize() {
+      return partStart < 0 ? 0 : limit - partStart;
+    }
+
+    @Override public int characteristics() {
+      return ORDERED | NONNULL | IMMUTABLE;
+    }
+  }
+
   abstract static class Last extends Pattern {
-    abstract Match match(String input, int fromIndex, int endIndex);
+    abstract Match match(CharSequence input, int fromIndex, int endIndex);
 
-    @Override Match match(String input, int fromIndex) {
+    @Override Match match(CharSequence input, int fromIndex) {
       return match(input, fromIndex, input.length());
     }
 
@@ -3049,7 +3903,7 @@ public final class Substring {
     private Pattern look(Predicate<Match> condition) {
       Last original = this;
       return new Last() {
-        @Override Match match(String input, int fromIndex, int endIndex) {
+        @Override Match match(CharSequence input, int fromIndex, int endIndex) {
           for (int i = endIndex; i >= fromIndex; ) {
             Match match = original.match(input, fromIndex, i);
             if (match == null || condition.test(match)) {
@@ -3081,5 +3935,71 @@ public final class Substring {
     return index;
   }
 
+  // String.indexOf() and friends are intrinsified. Only fall back to char-by-char for other types.
+
+  static int indexOf(CharSequence input, String str, int fromIndex) {
+    if (input instanceof String) {
+      return ((String) input).indexOf(str, fromIndex);
+    }
+    int lastIndex = input.length() - str.length();
+    for (int i = max(fromIndex, 0); i <= lastIndex; i++) {
+      if (startsWith(input, str, i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int indexOf(CharSequence input, char character, int fromIndex) {
+    if (input instanceof String) {
+      return ((String) input).indexOf(character, fromIndex);
+    }
+    for (int i = max(fromIndex, 0); i < input.length(); i++) {
+      if (input.charAt(i) == character) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(CharSequence input, String str, int fromIndex) {
+    if (input instanceof String) {
+      return ((String) input).lastIndexOf(str, fromIndex);
+    }
+    for (int i = min(fromIndex, input.length() - str.length()); i >= 0; i--) {
+      if (startsWith(input, str, i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int lastIndexOf(CharSequence input, char character, int fromIndex) {
+    if (input instanceof String) {
+      return ((String) input).lastIndexOf(character, fromIndex);
+    }
+    for (int i = min(fromIndex, input.length() - 1); i >= 0; i--) {
+      if (input.charAt(i) == character) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  static boolean startsWith(CharSequence input, String prefix, int offset) {
+    if (input instanceof String) {
+      return ((String) input).startsWith(prefix, offset);
+    }
+    if (offset < 0 || offset > input.length() - prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (input.charAt(offset + i) != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private Substring() {}
 }
@@ -0,0 +1,201 @@
+/*****************************************************************************
+ * ------------------------------------------------------------------------- *
+ * Licensed under the Apache License, Version 2.0 (the "License");           *
+ * you may not use this file except in compliance with the License.          *
+ * You may obtain a copy of the License at                                   *
+ *                                                                           *
+ * http://www.apache.org/licenses/LICENSE-2.0                                *
+ *                                                                           *
+ * Unless required by applicable law or agreed to in writing, software       *
+ * distributed under the License is distributed on an "AS IS" BASIS,         *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  *
+ * See the License for the specific language governing permissions and       *
+ * limitations under the License.                                            *
+ *****************************************************************************/
+package com.google.mu.util;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Applies a {@link Substring.RepeatingPattern} over a {@link Reader} through a sliding window, so
+ * that input of any size can be scanned with memory proportional to {@code maxMatchLength} plus
+ * the read chunk size.
+ *
+ * <p>A match is only accepted once there are at least {@code maxMatchLength} characters buffered
+ * from its starting index and at least one character after it (or the end of input is reached),
+ * so the pattern sees the same characters it would have seen against the full input. Similarly,
+ * {@code maxMatchLength} characters are kept before the scanning position for lookbehind.
+ *
+ * <p>When there is no match in the window, patterns that {@link
+ * Substring.RepeatingPattern#searchesForward search forward} skip to the last {@code
+ * maxMatchLength} characters. Other patterns (such as those anchored at the scanning position)
+ * keep the scanning position, and retain the input from there until a match is found or the end
+ * of input is reached.
+ *
+ * <p>In {@link #replaceTo replacing} mode, the characters between matches are written to the sink
+ * as they are dropped from the window, so they don't need to be retained.
+ */
+final class WindowedScanner {
+  private static final int CHUNK_SIZE = 8192;
+
+  private final Substring.RepeatingPattern pattern;
+  private final Reader reader;
+  private final int maxMatchLength;
+  private final boolean searchesForward;
+  private final char[] chunk;
+  private final StringBuilder window = new StringBuilder();
+  private long windowOffset = 0; // absolute index of window[0]
+  private long mark = Long.MAX_VALUE; // absolute index from which chars must be retained
+  private int resume = 0; // window index to resume scanning from
+  private boolean eof = false;
+  private Substring.Cursor cursor;
+  private Appendable sink; // non-null in replacing mode
+
+  WindowedScanner(Substring.RepeatingPattern pattern, Reader reader, int maxMatchLength) {
+    this.pattern = requireNonNull(pattern);
+    this.reader = requireNonNull(reader);
+    if (!pattern.resumable()) {
+      throw new UnsupportedOperationException(pattern + " can't be resumed to scan a Reader.");
+    }
+    if (maxMatchLength <= 0) {
+      throw new IllegalArgumentException(
+          "maxMatchLength (" + maxMatchLength + ") must be positive.");
+    }
+    this.maxMatchLength = maxMatchLength;
+    this.searchesForward = pattern.searchesForward();
+    this.chunk = new char[max(CHUNK_SIZE, maxMatchLength)];
+  }
+
+  /**
+   * Moves to the next match, whose boundaries are then available through {@link #start} and
+   * {@link #end}. Returns false if there are no more matches.
+   */
+  boolean next() {
+    for (; ; ) {
+      if (cursor == null) {
+        cursor = pattern.cursor(window, resume);
+      }
+      boolean found = cursor.next();
+      if (found
+          && (eof
+              || (cursor.start + maxMatchLength <= window.length()
+                  && cursor.end < window.length()))) {
+        resume = min(cursor.repetitionStartIndex, window.length());
+        return true;
+      }
+      if (eof) {
+        return false;
+      }
+      if (!found && searchesForward) {
+        // Any match starting earlier would have been longer than maxMatchLength.
+        // Patterns anchored at the resume index (like prefix() or BEGINNING) can't be rebased
+        // because they'd match at an index that isn't the true resume position.
+        resume = max(resume, window.length() - maxMatchLength);
+      }
+      cursor = null;
+      compact();
+      fill();
+    }
+  }
+
+  /** Absolute index of the current match in the input. */
+  long start() {
+    return windowOffset + cursor.start;
+  }
+
+  /** Absolute index after the current match in the input. */
+  long end() {
+    return windowOffset + cursor.end;
+  }
+
+  /** Retains all characters from the absolute {@code index} until the next mark. */
+  void mark(long index) {
+    mark = index;
+  }
+
+  /** Returns the characters between absolute indices, which must still be retained. */
+  String substring(long from, long to) {
+    return window.substring((int) (from - windowOffset), (int) (to - windowOffset));
+  }
+
+  /**
+   * Returns the characters from absolute {@code from} to the end of input. Can only be called
+   * after {@link #next} has returned false.
+   */
+  String remaining(long from) {
+    return window.substring((int) (from - windowOffset));
+  }
+
+  /**
+   * Switches to replacing mode, where all input characters are written to {@code sink}, except
+   * for the matches passed to {@link #replace}. Must be called before {@link #next}.
+   */
+  void replaceTo(Appendable sink) {
+    this.sink = requireNonNull(sink);
+    mark = 0;
+  }
+
+  /** Writes the characters before the current match followed by {@code replacement} to the sink. */
+  void replace(CharSequence replacement) {
+    emit(start());
+    write(replacement, 0, replacement.length());
+    mark = end();
+  }
+
+  /**
+   * Writes the remaining characters to the sink. Can only be called after {@link #next} has
+   * returned false.
+   */
+  void finishReplacing() {
+    emit(windowOffset + window.length());
+  }
+
+  /** Writes the retained characters up to the absolute {@code index} to the sink. */
+  private void emit(long index) {
+    if (mark < index) {
+      write(window, (int) (mark - windowOffset), (int) (index - windowOffset));
+      mark = index;
+    }
+  }
+
+  private void write(CharSequence chars, int from, int to) {
+    try {
+      sink.append(chars, from, to);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void compact() {
+    int dropTo = max(0, resume - maxMatchLength);
+    if (sink != null) {
+      emit(windowOffset + dropTo);
+    } else if (mark < Long.MAX_VALUE) {
+      dropTo = (int) min(dropTo, max(0, mark - windowOffset));
+    }
+    if (dropTo > 0) {
+      window.delete(0, dropTo);
+      windowOffset += dropTo;
+      resume -= dropTo;
+    }
+  }
+
+  private void fill() {
+    try {
+      int read = reader.read(chunk);
+      if (read < 0) {
+        eof = true;
+      } else {
+        window.append(chunk, 0, read);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
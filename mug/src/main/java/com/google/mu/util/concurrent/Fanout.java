@@ -429,7 +429,7 @@ public final class Fanout {
    * propagation etc.
    */
   public static Parallelizer withMaxConcurrency(int maxConcurrency) {
-    return new Parallelizer(Scope.executor, maxConcurrency);
+    return new Parallelizer(Scope.executor, maxConcurrency, Scope.listener);
   }
 
   /**
@@ -464,6 +464,7 @@ public final class Fanout {
 
   private static final class Scope {
     private static final ExecutorService executor = EXECUTOR_PLUGIN.createExecutor();
+    private static final TaskListener listener = EXECUTOR_PLUGIN.taskListener();
     private final List<Runnable> runnables = new ArrayList<>();
 
     <T> AtomicReference<T> add(Supplier<T> task) {
@@ -21,26 +21,36 @@ import static java.util.stream.Collectors.toList;
 
 import java.lang.reflect.InvocationTargetException;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collector;
@@ -49,6 +59,7 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import com.google.mu.util.stream.BiStream;
+import com.google.mu.util.stream.MoreStreams;
 
 /**
  * Utility to support <a href="https://en.wikipedia.org/wiki/Structured_concurrency">structured
@@ -153,6 +164,8 @@ public final class Parallelizer {
 
   private final ExecutorService executor;
   private final int maxConcurrency;
+  private final AdaptiveConcurrency adaptive; // null if fixed concurrency
+  private final TaskListener listener;
 
   /**
    * Constructs a {@code Parallelizer} that runs tasks with {@code executor}.
@@ -163,11 +176,81 @@ public final class Parallelizer {
    * execution, if for example all worker threads in {@code executor} are busy.
    */
   public Parallelizer(ExecutorService executor, int maxConcurrency) {
+    this(executor, maxConcurrency, TaskListener.NOOP);
+  }
+
+  Parallelizer(ExecutorService executor, int maxConcurrency, TaskListener listener) {
+    this(executor, maxConcurrency, null, listener);
+  }
+
+  private Parallelizer(
+      ExecutorService executor,
+      int maxConcurrency,
+      AdaptiveConcurrency adaptive,
+      TaskListener listener) {
     this.executor = requireNonNull(executor);
     this.maxConcurrency = maxConcurrency;
+    this.adaptive = adaptive;
+    this.listener = requireNonNull(listener);
     if (maxConcurrency <= 0) throw new IllegalArgumentException("maxConcurrency = " + maxConcurrency);
   }
 
+  /**
+   * Returns a {@code Parallelizer} that runs tasks with {@code executor}, and adjusts its
+   * concurrency limit at runtime between {@code minConcurrency} and {@code maxConcurrency} based on
+   * the observed task latency and failures.
+   *
+   * <p>The limit follows the AIMD (additive-increase/multiplicative-decrease) algorithm: starting
+   * from {@code minConcurrency}, each successful task grows the limit by {@code 1 / limit}
+   * (roughly 1 per round of tasks); while task failures, or the recent average latency rising to
+   * more than twice the long-term average, shrink the limit by 10%, at most once per round of
+   * tasks. This way the concurrency backs off when the backend is overloaded and probes for more
+   * throughput otherwise, without having to hand-tune {@code maxConcurrency} per backend.
+   * Occasional slow tasks of a heavy-tailed workload don't cause backoff on their own.
+   *
+   * <p>The limit is shared by all calls on the returned {@code Parallelizer}, and can be read with
+   * {@link #currentConcurrency}.
+   *
+   * @throws IllegalArgumentException if {@code minConcurrency} isn't positive or is greater than
+   *     {@code maxConcurrency}
+   * @since 8.6
+   */
+  public static Parallelizer adaptive(
+      ExecutorService executor, int minConcurrency, int maxConcurrency) {
+    requireNonNull(executor);
+    if (minConcurrency <= 0) throw new IllegalArgumentException("minConcurrency = " + minConcurrency);
+    if (minConcurrency > maxConcurrency) {
+      throw new IllegalArgumentException(
+          "minConcurrency (" + minConcurrency + ") > maxConcurrency (" + maxConcurrency + ")");
+    }
+    return new Parallelizer(
+        executor,
+        maxConcurrency,
+        new AdaptiveConcurrency(minConcurrency, maxConcurrency),
+        TaskListener.NOOP);
+  }
+
+  /**
+   * Returns a {@code Parallelizer} equivalent to this one (sharing the same adaptive concurrency
+   * limit, if any), except that task events are reported to {@code listener}.
+   *
+   * @since 8.6
+   */
+  public Parallelizer withListener(TaskListener listener) {
+    return new Parallelizer(executor, maxConcurrency, adaptive, requireNonNull(listener));
+  }
+
+  /**
+   * Returns the current concurrency limit. For a {@code Parallelizer} created by {@link #adaptive},
+   * it's the limit adjusted so far; otherwise it's always the {@code maxConcurrency} passed to the
+   * constructor.
+   *
+   * @since 8.6
+   */
+  public int currentConcurrency() {
+    return adaptive == null ? maxConcurrency : adaptive.limit();
+  }
+
   /**
    * Returns a {@link Parallelizer} using virtual threads for running tasks, with at most
    * {@code maxConcurrency} tasks running concurrently.
@@ -320,6 +403,47 @@ public final class Parallelizer {
     parallelize(stream(inputs), consumer, heartbeatTimeout, timeUnit);
   }
 
+  /**
+   * Runs {@code consumer} for {@code inputs} in parallel, with consecutive inputs grouped into
+   * chunks of up to {@code chunkSize} elements per task; and blocks until either all tasks have
+   * finished, or any exception is thrown upon which all pending tasks are canceled
+   * (but the method returns without waiting for the tasks to respond to cancellation).
+   *
+   * <p>Useful when {@code consumer} is so cheap that submitting one task per input would cost
+   * more than the work itself. Within each chunk, the inputs are consumed sequentially. If the
+   * task thread is interrupted (for example when the task is canceled), the rest of the chunk is
+   * skipped by throwing {@link StructuredConcurrencyInterruptedException}, which fails the call
+   * like any other task exception.
+   *
+   * <p>The {@code inputs} stream is consumed only in the calling thread in iteration order.
+   *
+   * @param inputs the inputs to be passed to {@code consumer}
+   * @param chunkSize the max number of inputs to be consumed by each task
+   * @param consumer to be parallelized
+   * @throws IllegalArgumentException if {@code chunkSize} isn't positive
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   * @since 8.6
+   */
+  public <T> void parallelizeInChunks(
+      Stream<? extends T> inputs, int chunkSize, Consumer<? super T> consumer)
+      throws InterruptedException {
+    requireNonNull(inputs);
+    requireNonNull(consumer);
+    if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize = " + chunkSize);
+    parallelize(
+        MoreStreams.dice(inputs, chunkSize),
+        chunk -> {
+          for (T input : chunk) {
+            if (Thread.currentThread().isInterrupted()) {
+              // Fail the task instead of returning so that the skipped inputs aren't silently lost.
+              throw new StructuredConcurrencyInterruptedException(
+                  new InterruptedException("Interrupted before consuming " + input));
+            }
+            consumer.accept(input);
+          }
+        });
+  }
+
   /**
    * Runs {@code consumer} for {@code inputs} in parallel and blocks uninterruptibly until
    * either all tasks have finished, or any exception is thrown upon which all pending tasks are
@@ -489,6 +613,57 @@ public final class Parallelizer {
         });
   }
 
+  /**
+   * Lazily maps {@code inputs} with {@code concurrentFunction} in parallel using this {@code
+   * Parallelizer}, and returns the outputs in encounter order of the inputs. Equivalent to
+   * {@code map(inputs, concurrentFunction, maxConcurrency)}.
+   *
+   * @since 8.6
+   */
+  public <I, O> Stream<O> map(
+      Stream<? extends I> inputs, Function<? super I, ? extends O> concurrentFunction) {
+    return map(inputs, concurrentFunction, maxConcurrency);
+  }
+
+  /**
+   * Lazily maps {@code inputs} with {@code concurrentFunction} in parallel using this {@code
+   * Parallelizer}, and returns the outputs in encounter order of the inputs.
+   *
+   * <p>Unlike {@link #inParallel}, which waits for all inputs to be processed, the returned stream
+   * pulls {@code inputs} on demand, and emits each output as soon as it and all outputs before it
+   * are available. At most {@code maxBufferSize} inputs are in flight or have outputs waiting to
+   * be consumed at any given time, so memory usage is bounded regardless of the number of inputs.
+   *
+   * <p>For example:
+   *
+   * <pre>{@code
+   * try (Stream<Asset> assets = parallelizer.map(resources, this::fetchAsset, 100)) {
+   *   assets.forEach(writer::write);
+   * }
+   * }</pre>
+   *
+   * <p>The {@code inputs} stream is consumed only in the thread that consumes the returned stream.
+   * If any task fails, the pending tasks are canceled and the failure is propagated as an
+   * unchecked exception. Closing the returned stream cancels the tasks still in flight.
+   *
+   * @param maxBufferSize the max number of inputs that are in flight or whose outputs are not yet
+   *     consumed. Setting it higher than {@code maxConcurrency} allows tasks following a slow task
+   *     to keep running.
+   * @throws IllegalArgumentException if {@code maxBufferSize} isn't positive
+   * @since 8.6
+   */
+  public <I, O> Stream<O> map(
+      Stream<? extends I> inputs,
+      Function<? super I, ? extends O> concurrentFunction,
+      int maxBufferSize) {
+    requireNonNull(inputs);
+    requireNonNull(concurrentFunction);
+    if (maxBufferSize <= 0) throw new IllegalArgumentException("maxBufferSize = " + maxBufferSize);
+    OrderedFlight<I, O> flight =
+        new OrderedFlight<>(inputs.iterator(), concurrentFunction, maxBufferSize);
+    return stream(flight).onClose(flight::cancel).onClose(inputs::close);
+  }
+
   static <T> Stream<Runnable> forAll(Stream<? extends T> inputs, Consumer<? super T> consumer) {
     requireNonNull(consumer);
     return inputs.map(input -> () -> consumer.accept(input));
@@ -496,30 +671,56 @@ public final class Parallelizer {
 
   private final class Flight {
     // fairness is irrelevant here since only the main thread ever calls acquire().
-    private final Semaphore semaphore = new Semaphore(maxConcurrency);
+    private final Permits semaphore = new Permits();
     private final ConcurrentMap<Object, Future<?>> onboard = new ConcurrentHashMap<>();
     private volatile ConcurrentLinkedQueue<Throwable> thrown = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger(); // only maintained if listened
+    private long permitWaitNanos;
 
     void checkIn(long timeout, TimeUnit timeUnit)
         throws InterruptedException, TimeoutException, UncheckedExecutionException {
-      boolean acquired = semaphore.tryAcquire(timeout, timeUnit);
-      propagateExceptions();
-      if (!acquired) throw new TimeoutException();
+      long startNanos = listener == TaskListener.NOOP ? 0 : System.nanoTime();
+      semaphore.adapt();
+      acquire(timeout, timeUnit);
+      if (listener != TaskListener.NOOP) {
+        permitWaitNanos = System.nanoTime() - startNanos;
+      }
     }
 
     void checkInUninterruptibly() throws UncheckedExecutionException {
-      semaphore.acquireUninterruptibly();
-      propagateExceptions();
+      long startNanos = listener == TaskListener.NOOP ? 0 : System.nanoTime();
+      semaphore.adapt();
+      acquireUninterruptibly();
+      if (listener != TaskListener.NOOP) {
+        permitWaitNanos = System.nanoTime() - startNanos;
+      }
     }
 
     void board(Runnable task) {
       requireNonNull(task);
+      InstrumentedTask<?> instrumented =
+          listener == TaskListener.NOOP
+              ? null
+              : new InstrumentedTask<>(
+                  () -> {
+                    task.run();
+                    return null;
+                  },
+                  inFlight,
+                  permitWaitNanos);
       AtomicBoolean done = new AtomicBoolean();
       // Use '<:' to denote happens-before throughout this method body.
-      Future<?> future = executor.submit(() -> {
+      FutureTask<?> future = new FutureTask<Void>(() -> {
+        long startNanos = System.nanoTime();
+        boolean succeeded = false;
         try {
           try {
-            task.run();
+            if (instrumented == null) {
+              task.run();
+            } else {
+              Object unused = instrumented.get();
+            }
+            succeeded = true;
           } finally {
             done.set(true);  // A
             onboard.remove(done);  // B
@@ -527,6 +728,7 @@ public final class Parallelizer {
         } catch (Throwable e) {
           ConcurrentLinkedQueue<Throwable> toPropagate = thrown;
           if (toPropagate == null) {
+            listener.taskOrphaned(e);
             if (Thread.currentThread().isInterrupted()) {
               // If we are cancelled (and interrupted), the exception is likely due to the
               // cancellation. Don't log the noisy stack trace.
@@ -547,9 +749,17 @@ public final class Parallelizer {
             toPropagate.add(e);
           }
         } finally {
+          recordLatency(startNanos, succeeded);
+        }
+      }, null) {
+        @Override protected void done() {
+          if (instrumented != null && isCancelled()) {
+            instrumented.canceled();
+          }
           semaphore.release();
         }
-      });
+      };
+      executor.execute(future);
       onboard.put(done, future);  // C
       checkInFlight();
       // A <: B, C <: D <: E
@@ -564,18 +774,30 @@ public final class Parallelizer {
 
     void land(long timeout, TimeUnit timeUnit)
         throws InterruptedException, TimeoutException, UncheckedExecutionException {
-      for (int i = freeze(); i > 0; i--) checkIn(timeout, timeUnit);
+      for (int i = freeze(); i > 0; i--) acquire(timeout, timeUnit);
     }
 
     void landUninterruptibly() throws UncheckedExecutionException {
-      for (int i = freeze(); i > 0; i--) checkInUninterruptibly();
+      for (int i = freeze(); i > 0; i--) acquireUninterruptibly();
     }
 
     void cancel() {
-      // When we cancel a scheduled-but-not-executed task, we'll leave the semaphore unreleased.
+      // Canceling a task releases its permit through done(), even if the task is still running.
       // But it's okay because the only time we cancel is when we are aborting the whole pipeline
       // and nothing will use the semaphore after that.
-      onboard.values().forEach(f -> f.cancel(true));
+      onboard.values().forEach(f -> f.cancel(true)); // done() reports it to the listener
+    }
+
+    private void acquire(long timeout, TimeUnit timeUnit)
+        throws InterruptedException, TimeoutException, UncheckedExecutionException {
+      boolean acquired = semaphore.tryAcquire(timeout, timeUnit);
+      propagateExceptions();
+      if (!acquired) throw new TimeoutException();
+    }
+
+    private void acquireUninterruptibly() throws UncheckedExecutionException {
+      semaphore.acquireUninterruptibly();
+      propagateExceptions();
     }
 
     private void checkInFlight() {
@@ -601,12 +823,305 @@ public final class Parallelizer {
     }
 
     private int freeze() {
-      int remaining = maxConcurrency - semaphore.drainPermits();
+      // Permits may be negative after the limit shrinks; drainPermits() then resets them to 0.
+      int remaining = semaphore.capacity() - semaphore.drainPermits();
       propagateExceptions();
       return remaining;
     }
   }
 
+  /** Runs tasks ahead of consumption, while emitting the outputs in encounter order. */
+  private final class OrderedFlight<I, O> implements Iterator<O> {
+    // Only the consuming thread ever calls acquire().
+    private final Permits semaphore = new Permits();
+    private final Deque<Future<O>> buffer = new ArrayDeque<>();
+    private final AtomicReference<Throwable> thrown = new AtomicReference<>();
+    private final AtomicInteger inFlight = new AtomicInteger(); // only maintained if listened
+    private volatile boolean aborted;
+    private final Iterator<? extends I> inputs;
+    private final Function<? super I, ? extends O> function;
+    private final int maxBufferSize;
+
+    OrderedFlight(
+        Iterator<? extends I> inputs, Function<? super I, ? extends O> function, int maxBufferSize) {
+      this.inputs = inputs;
+      this.function = function;
+      this.maxBufferSize = maxBufferSize;
+    }
+
+    @Override public boolean hasNext() {
+      if (buffer.size() < maxBufferSize && inputs.hasNext()) {
+        abortOnFailure(this::refill);
+      }
+      return !buffer.isEmpty();
+    }
+
+    @Override public O next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      Future<O> head = buffer.peek();
+      return abortOnFailure(() -> {
+        // Keep the pipeline busy while waiting for the head.
+        while (!head.isDone() && buffer.size() < maxBufferSize && inputs.hasNext()) {
+          boardNext();
+        }
+        O output = head.get();
+        buffer.remove();
+        return output;
+      });
+    }
+
+    void cancel() {
+      aborted = true;
+      buffer.forEach(f -> f.cancel(true)); // done() reports it to the listener
+      buffer.clear();
+    }
+
+    /**
+     * Boards as many inputs as the buffer and the available permits allow, whether or not the head
+     * is done; only waits for a permit if the buffer is empty.
+     */
+    private Void refill() throws InterruptedException {
+      if (buffer.isEmpty()) {
+        boardNext();
+      }
+      while (buffer.size() < maxBufferSize && inputs.hasNext() && tryBoardNext()) {}
+      return null;
+    }
+
+    private Void boardNext() throws InterruptedException {
+      long permitWaitStartNanos = listener == TaskListener.NOOP ? 0 : System.nanoTime();
+      semaphore.adapt();
+      semaphore.acquire();
+      long permitWaitNanos =
+          listener == TaskListener.NOOP ? 0 : System.nanoTime() - permitWaitStartNanos;
+      board(permitWaitNanos);
+      return null;
+    }
+
+    private boolean tryBoardNext() {
+      semaphore.adapt();
+      if (!semaphore.tryAcquire()) {
+        return false;
+      }
+      board(0);
+      return true;
+    }
+
+    private void board(long permitWaitNanos) {
+      propagateException();
+      I input = inputs.next();
+      Supplier<O> task = () -> function.apply(input);
+      InstrumentedTask<O> instrumented =
+          listener == TaskListener.NOOP
+              ? null
+              : new InstrumentedTask<>(task, inFlight, permitWaitNanos);
+      FutureTask<O> future = new FutureTask<O>(() -> {
+        long startNanos = System.nanoTime();
+        boolean succeeded = false;
+        try {
+          O output = instrumented == null ? task.get() : instrumented.get();
+          succeeded = true;
+          return output;
+        } catch (Throwable e) {
+          // Only the first exception is propagated to the consumer.
+          if (!thrown.compareAndSet(null, e) || aborted) {
+            listener.taskOrphaned(e);
+          }
+          throw e;
+        } finally {
+          recordLatency(startNanos, succeeded);
+          semaphore.release();
+        }
+      }) {
+        @Override protected void done() {
+          if (instrumented != null && isCancelled()) {
+            instrumented.canceled();
+          }
+        }
+      };
+      executor.execute(future);
+      buffer.add(future);
+    }
+
+    private void propagateException() {
+      Throwable exception = thrown.get();
+      if (exception != null) throw new UncheckedExecutionException(exception);
+    }
+
+    private <T> T abortOnFailure(Callable<T> step) {
+      try {
+        return step.call();
+      } catch (ExecutionException e) {
+        cancel();
+        // A later task may have failed first. Only the first failure is propagated; the rest are
+        // reported as orphaned.
+        throw new UncheckedExecutionException(thrown.get());
+      } catch (InterruptedException e) {
+        cancel();
+        throw new StructuredConcurrencyInterruptedException(e);
+      } catch (RuntimeException | Error e) {
+        cancel();
+        throw e;
+      } catch (Exception e) {
+        cancel();
+        throw new UncheckedExecutionException(e);
+      }
+    }
+  }
+
+  /**
+   * Wraps a task to report its events to {@link #listener}. The task is claimed either by the worker
+   * thread when it starts, or by cancellation before it starts, so that a task canceled before
+   * starting is no longer counted as in flight.
+   */
+  private final class InstrumentedTask<T> implements Supplier<T> {
+    private final Supplier<T> task;
+    private final AtomicInteger inFlight;
+    private final long queuedNanos;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    InstrumentedTask(Supplier<T> task, AtomicInteger inFlight, long permitWaitNanos) {
+      this.task = task;
+      this.inFlight = inFlight;
+      this.queuedNanos = System.nanoTime();
+      listener.taskQueued(permitWaitNanos, inFlight.incrementAndGet());
+    }
+
+    @Override public T get() {
+      if (!claimed.compareAndSet(false, true)) {
+        return null; // Canceled before starting. The result is discarded anyway.
+      }
+      long startNanos = System.nanoTime();
+      listener.taskStarted(startNanos - queuedNanos, inFlight.get());
+      try {
+        T result = task.get();
+        listener.taskFinished(System.nanoTime() - startNanos, inFlight.decrementAndGet());
+        return result;
+      } catch (RuntimeException | Error e) {
+        listener.taskFailed(e, System.nanoTime() - startNanos, inFlight.decrementAndGet());
+        throw e;
+      }
+    }
+
+    /** Called after the task is canceled. A started task leaves the in-flight count to itself. */
+    void canceled() {
+      listener.taskCanceled(
+          claimed.compareAndSet(false, true) ? inFlight.decrementAndGet() : inFlight.get());
+    }
+  }
+
+  private void recordLatency(long startNanos, boolean succeeded) {
+    if (adaptive != null) {
+      adaptive.record(System.nanoTime() - startNanos, succeeded);
+    }
+  }
+
+  /**
+   * Semaphore whose total permits follow the adaptive concurrency limit, if any. Only the thread
+   * that acquires permits calls {@link #adapt} and {@link #capacity}.
+   */
+  private final class Permits extends Semaphore {
+    private static final long serialVersionUID = 1L;
+    private int capacity;
+
+    Permits() {
+      this(Parallelizer.this.currentConcurrency());
+    }
+
+    private Permits(int capacity) {
+      super(capacity);
+      this.capacity = capacity;
+    }
+
+    /** Grows or shrinks the total permits to the current concurrency limit. */
+    void adapt() {
+      int limit = currentConcurrency();
+      if (limit > capacity) {
+        release(limit - capacity);
+      } else if (limit < capacity) {
+        reducePermits(capacity - limit);
+      }
+      capacity = limit;
+    }
+
+    /** Returns the total number of permits, including the ones acquired. */
+    int capacity() {
+      return capacity;
+    }
+  }
+
+  /**
+   * AIMD concurrency limit driven by task latency and failures.
+   *
+   * <p>Updated lock-free by the completing tasks. Racing updates of the latency averages may lose a
+   * sample, which is harmless for smoothed values.
+   */
+  static final class AdaptiveConcurrency {
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double SLOW_LATENCY_RATIO = 2;
+    private static final double SHORT_TERM_SMOOTHING = 0.1;
+    private static final double LONG_TERM_SMOOTHING = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicLong limitBits; // the double limit
+    private final AtomicLong completions = new AtomicLong();
+    private final AtomicLong nextBackoff = new AtomicLong(); // no backoff before this many completions
+    private volatile double shortTermLatencyNanos;
+    private volatile double longTermLatencyNanos;
+
+    AdaptiveConcurrency(int minLimit, int maxLimit) {
+      this.minLimit = minLimit;
+      this.maxLimit = maxLimit;
+      this.limitBits = new AtomicLong(Double.doubleToRawLongBits(minLimit));
+    }
+
+    int limit() {
+      return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    void record(long latencyNanos, boolean succeeded) {
+      long completed = completions.incrementAndGet();
+      boolean slow = false;
+      if (succeeded) {
+        double shortTerm = shortTermLatencyNanos;
+        double longTerm = longTermLatencyNanos;
+        if (longTerm == 0) {
+          shortTerm = longTerm = latencyNanos;
+        } else {
+          shortTerm += (latencyNanos - shortTerm) * SHORT_TERM_SMOOTHING;
+          longTerm += (latencyNanos - longTerm) * LONG_TERM_SMOOTHING;
+          // Compare averages rather than individual tasks, so that the occasional slow task of a
+          // heavy-tailed workload doesn't count as congestion.
+          slow = shortTerm > longTerm * SLOW_LATENCY_RATIO;
+        }
+        shortTermLatencyNanos = shortTerm;
+        longTermLatencyNanos = longTerm;
+      }
+      if (succeeded && !slow) {
+        update(limit -> Math.min(maxLimit, limit + 1 / limit));
+        return;
+      }
+      // Back off at most once per round of about `limit` completions, because the tasks that were
+      // already in flight when the backend got congested are likely to fail or be slow too.
+      long backoffAllowed = nextBackoff.get();
+      if (completed >= backoffAllowed
+          && nextBackoff.compareAndSet(backoffAllowed, completed + limit())) {
+        update(limit -> Math.max(minLimit, limit * BACKOFF_RATIO));
+      }
+    }
+
+    private void update(DoubleUnaryOperator function) {
+      for (; ; ) {
+        long bits = limitBits.get();
+        double updated = function.applyAsDouble(Double.longBitsToDouble(bits));
+        if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(updated))) {
+          return;
+        }
+      }
+    }
+  }
+
   static final class VirtualThread {
     static final ExecutorService executor;
     static {
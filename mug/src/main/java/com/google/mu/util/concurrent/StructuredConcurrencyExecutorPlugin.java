@@ -23,6 +23,16 @@ public abstract class StructuredConcurrencyExecutorPlugin {
    */
   protected abstract ExecutorService createExecutor();
 
+  /**
+   * Subclasses override this method to listen to the lifecycle events of the structured
+   * concurrency fanout tasks, for example to export metrics. Called once. No-op by default.
+   *
+   * @since 8.6
+   */
+  protected TaskListener taskListener() {
+    return TaskListener.NOOP;
+  }
+
   /**
    * Returns the priority of this plugin when multiple plugins are available. Defaults to {@link
    * Priority#FRAMEWORK_STANDARD}, intended for server frameworks to implement.
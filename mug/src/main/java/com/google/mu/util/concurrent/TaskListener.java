@@ -0,0 +1,74 @@
+/*****************************************************************************
+ * ------------------------------------------------------------------------- *
+ * Licensed under the Apache License, Version 2.0 (the "License");           *
+ * you may not use this file except in compliance with the License.          *
+ * You may obtain a copy of the License at                                   *
+ *                                                                           *
+ * http://www.apache.org/licenses/LICENSE-2.0                                *
+ *                                                                           *
+ * Unless required by applicable law or agreed to in writing, software       *
+ * distributed under the License is distributed on an "AS IS" BASIS,         *
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  *
+ * See the License for the specific language governing permissions and       *
+ * limitations under the License.                                            *
+ *****************************************************************************/
+package com.google.mu.util.concurrent;
+
+/**
+ * Listens to the lifecycle events of the tasks run by {@link Parallelizer} and {@link Fanout}, for
+ * example to export metrics of permit wait time, run time and in-flight task count.
+ *
+ * <p>All methods are no-op by default. Subclasses override the events they care about. Methods
+ * may be called concurrently from the worker threads, so implementations need to be thread safe,
+ * cheap, and shouldn't throw.
+ *
+ * <p>Use {@link Parallelizer#withListener} to listen to a {@code Parallelizer}; or override
+ * {@link StructuredConcurrencyExecutorPlugin#taskListener} to listen to the {@link Fanout} tasks.
+ *
+ * <p>The {@code inFlight} parameter is the number of tasks submitted but not yet finished in the
+ * same {@code parallelize()} or {@code concurrently()} call, after the event took effect.
+ *
+ * @since 8.6
+ */
+public abstract class TaskListener {
+  static final TaskListener NOOP = new TaskListener() {
+    @Override public String toString() {
+      return "TaskListener.NOOP";
+    }
+  };
+
+  /**
+   * Called in the calling thread when a task is submitted to the executor, after having waited
+   * {@code permitWaitNanos} for the concurrency permit.
+   */
+  public void taskQueued(long permitWaitNanos, int inFlight) {}
+
+  /**
+   * Called in the worker thread when a task starts to run, {@code queueNanos} after it was
+   * submitted.
+   */
+  public void taskStarted(long queueNanos, int inFlight) {}
+
+  /** Called in the worker thread when a task has returned successfully after {@code runNanos}. */
+  public void taskFinished(long runNanos, int inFlight) {}
+
+  /** Called in the worker thread when a task has thrown {@code exception} after {@code runNanos}. */
+  public void taskFailed(Throwable exception, long runNanos, int inFlight) {}
+
+  /**
+   * Called when a task failed with {@code exception} that the calling thread won't propagate,
+   * because it has already given up (upon another failure, timeout or interruption). The exception
+   * is otherwise only logged.
+   *
+   * <p>This is an additional event: the same failure has already been reported to {@link
+   * #taskFailed}, so metrics counting failed tasks shouldn't count orphaned ones again.
+   */
+  public void taskOrphaned(Throwable exception) {}
+
+  /**
+   * Called in the calling thread when a pending or running task is canceled. A pending task is no
+   * longer counted in {@code inFlight}; a running task is, until it reports {@link #taskFinished}
+   * or {@link #taskFailed}.
+   */
+  public void taskCanceled(int inFlight) {}
+}
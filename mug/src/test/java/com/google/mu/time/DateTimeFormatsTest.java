@@ -17,6 +17,8 @@ package com.google.mu.time;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static com.google.mu.time.DateTimeFormats.formatOf;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertThrows;
 
 import java.time.DateTimeException;
@@ -32,6 +34,11 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -434,6 +441,31 @@ public final class DateTimeFormatsTest {
     assertThat(zonedTime.format(formatter)).isEqualTo("20 10 2023 AD 01:02 AM -07:00");
   }
 
+  @Test
+  public void patternOf_example() {
+    assertThat(DateTimeFormats.patternOf("2023-10-20 01:02:03")).isEqualTo("yyyy-MM-dd HH:mm:ss");
+    assertThat(DateTimeFormats.patternOf("10/20/2023")).isEqualTo("MM/dd/yyyy");
+  }
+
+  @Test
+  public void patternOf_placeholders() {
+    assertThat(DateTimeFormats.patternOf("<Mon>, <Jan> dd yyyy <12:10:00> VV"))
+        .isEqualTo("E, LLL dd yyyy HH:mm:ss VV");
+  }
+
+  @Test
+  public void patternOf_sameFormatAsFormatOf() {
+    ZonedDateTime zonedTime =
+        ZonedDateTime.of(LocalDateTime.of(2023, 10, 20, 1, 2, 3), ZoneId.of("America/Los_Angeles"));
+    String example = "Fri, 20 Oct 2023 01:02:03 America/Los_Angeles";
+    assertEquivalent(formatOf(example), zonedTime, DateTimeFormats.patternOf(example));
+  }
+
+  @Test
+  public void patternOf_invalidExample() {
+    assertThrows(DateTimeException.class, () -> DateTimeFormats.patternOf("10/2/2023 10:10:10"));
+  }
+
   @Test
   public void formatOf_zoneNameNotRetranslated() {
     DateTimeFormatter formatter = formatOf("<Mon>, <Jan> dd yyyy <12:10:00> VV");
@@ -509,6 +541,43 @@ public final class DateTimeFormatsTest {
     assertThat(LocalDate.parse(example, DateTimeFormats.formatOf(example))).isEqualTo(day);
   }
 
+  @Test
+  public void parseZonedDateTime_sameShapeParsedRepeatedly() {
+    for (int day = 10; day <= 28; day++) {
+      assertThat(DateTimeFormats.parseZonedDateTime("2023-10-" + day + " 10:00:00 Europe/Paris"))
+          .isEqualTo(ZonedDateTime.of(2023, 10, day, 10, 0, 0, 0, ZoneId.of("Europe/Paris")));
+    }
+  }
+
+  @Test
+  public void parseZonedDateTime_dayAndMonthOrderResolvedPerInput() {
+    ZoneId paris = ZoneId.of("Europe/Paris");
+    assertThat(DateTimeFormats.parseZonedDateTime("10/13/2023 10:10:10 Europe/Paris"))
+        .isEqualTo(ZonedDateTime.of(2023, 10, 13, 10, 10, 10, 0, paris));
+    assertThat(DateTimeFormats.parseZonedDateTime("13/10/2023 10:10:10 Europe/Paris"))
+        .isEqualTo(ZonedDateTime.of(2023, 10, 13, 10, 10, 10, 0, paris));
+    assertThat(DateTimeFormats.parseZonedDateTime("10/31/2023 10:10:10 Europe/Paris"))
+        .isEqualTo(ZonedDateTime.of(2023, 10, 31, 10, 10, 10, 0, paris));
+  }
+
+  @Test
+  public void boundedCache_keepsRecentlyUsedEntry() {
+    BoundedCache<Object, String> cache = new BoundedCache<>(10);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(cache.get("hot", String::valueOf)).isEqualTo("hot");
+      assertThat(cache.get(i, String::valueOf)).isEqualTo(String.valueOf(i));
+    }
+    assertThat(cache.size()).isEqualTo(10);
+    assertThat(cache.misses()).isEqualTo(1001);
+  }
+
+  @Test
+  public void parseLocalDate_dayAndMonthOrderResolvedPerInput() {
+    assertThat(DateTimeFormats.parseLocalDate("10/30/2024")).isEqualTo(LocalDate.of(2024, 10, 30));
+    assertThat(DateTimeFormats.parseLocalDate("30/10/2024")).isEqualTo(LocalDate.of(2024, 10, 30));
+    assertThat(DateTimeFormats.parseLocalDate("10/30/2024")).isEqualTo(LocalDate.of(2024, 10, 30));
+  }
+
   @Test
   public void localDateWithWeekdayExamples() {
     ZonedDateTime date = DateTimeFormats.parseZonedDateTime("Mon, 2007-12-31 00:00:00 America/New_York");
@@ -763,6 +832,170 @@ public final class DateTimeFormatsTest {
         .isEqualTo(ZonedDateTime.parse("2020-01-01T00:00:00-08:00[America/Los_Angeles]", DateTimeFormatter.ISO_ZONED_DATE_TIME).toInstant());
   }
 
+  @Test
+  public void parseToInstant_rfc3339_sameAsIsoFormatters() {
+    Random random = new Random(7);
+    for (int i = 0; i < 2000; i++) {
+      Instant instant =
+          Instant.ofEpochSecond(random.nextInt(Integer.MAX_VALUE) * 3L - 2_000_000_000L)
+              .plusNanos(random.nextInt(4) == 0 ? 0 : random.nextInt(1_000_000_000));
+      ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(36 * 4) - 18 * 4) * 15 * 60);
+      String utc = instant.toString();
+      String withOffset = instant.atOffset(offset).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+      assertThat(DateTimeFormats.parseToInstant(utc)).isEqualTo(Instant.parse(utc));
+      assertThat(DateTimeFormats.parseToInstant(withOffset))
+          .isEqualTo(OffsetDateTime.parse(withOffset).toInstant());
+      if (offset.getTotalSeconds() != 0) { // ISO_OFFSET_DATE_TIME formats zero offset as "Z"
+        assertThat(DateTimeFormats.parseOffsetDateTime(withOffset))
+            .isEqualTo(OffsetDateTime.parse(withOffset));
+      }
+    }
+  }
+
+  @Test
+  public void parseToInstant_rfc3339_edgeCases() {
+    assertThat(DateTimeFormats.parseToInstant("1970-01-01T00:00:00Z")).isEqualTo(Instant.EPOCH);
+    assertThat(DateTimeFormats.parseToInstant("2024-02-29T23:59:59.999999999-00:00"))
+        .isEqualTo(Instant.parse("2024-02-29T23:59:59.999999999Z"));
+    assertThat(DateTimeFormats.parseToInstant("0001-01-01T00:00:00.1+17:59"))
+        .isEqualTo(OffsetDateTime.parse("0001-01-01T00:00:00.1+17:59").toInstant());
+    assertThat(DateTimeFormats.parseToInstant("2020-01-01T00:00:00+18:00"))
+        .isEqualTo(OffsetDateTime.parse("2020-01-01T00:00:00+18:00").toInstant());
+    assertThat(DateTimeFormats.parseToInstant("2011-12-03T23:59:60Z"))
+        .isEqualTo(Instant.parse("2011-12-03T23:59:59Z"));
+    assertThrows(
+        DateTimeException.class, () -> DateTimeFormats.parseToInstant("2023-02-29T00:00:00Z"));
+    assertThat(DateTimeFormats.parseToInstant("2023-01-01T24:00:00Z"))
+        .isEqualTo(Instant.parse("2023-01-02T00:00:00Z"));
+  }
+
+  @Test
+  public void parseOffsetDateTime_rfc3339() {
+    assertThat(DateTimeFormats.parseOffsetDateTime("2020-01-01T10:00:00.5-08:00"))
+        .isEqualTo(OffsetDateTime.of(2020, 1, 1, 10, 0, 0, 500_000_000, ZoneOffset.ofHours(-8)));
+    assertThrows(
+        DateTimeException.class,
+        () -> DateTimeFormats.parseOffsetDateTime("2023-13-01T00:00:00+01:00"));
+  }
+
+  @Test
+  public void parseColumn_mixedValues() {
+    List<String> column =
+        asList(
+            "2020-01-01 00:00:00 America/Los_Angeles",
+            "2020-01-02 00:00:00 America/New_York",
+            "bad",
+            null,
+            "2020-01-01T00:00:00Z",
+            "2020-01-01T08:00:00.123+08:00",
+            "2020/01/01T00:00, America/Los_Angeles");
+    long[] epochMillis = new long[column.size()];
+    BitSet failed = DateTimeFormats.parseColumn(column, epochMillis);
+    assertThat(failed.stream().boxed().collect(toList())).containsExactly(2, 3, 6);
+    for (int i = 0; i < column.size(); i++) {
+      if (!failed.get(i)) {
+        assertThat(epochMillis[i])
+            .isEqualTo(DateTimeFormats.parseToInstant(column.get(i)).toEpochMilli());
+      }
+    }
+  }
+
+  @Test
+  public void parseColumn_firstValueInfersMalformedPattern() {
+    List<String> column =
+        asList(
+            "+2024+08:00+1999",
+            "2020-01-01 00:00:00 America/Los_Angeles",
+            "2020-01-02 00:00:00 America/New_York");
+    assertThrows(
+        IllegalArgumentException.class, () -> DateTimeFormats.parseToInstant(column.get(0)));
+    long[] epochMillis = new long[column.size()];
+    BitSet failed = DateTimeFormats.parseColumn(column, epochMillis);
+    assertThat(failed.stream().boxed().collect(toList())).containsExactly(0);
+    assertThat(epochMillis[2])
+        .isEqualTo(DateTimeFormats.parseToInstant(column.get(2)).toEpochMilli());
+    assertThat(DateTimeFormats.parseColumnInParallel(column, new long[column.size()]))
+        .isEqualTo(failed);
+  }
+
+  @Test
+  public void parseColumn_formatInferredFromFirstParseableValue() {
+    List<String> column =
+        asList(
+            null,
+            "not a date",
+            "2020/01/01T00:00, America/Los_Angeles",
+            "2020-01-01 00:00:00 America/Los_Angeles",
+            "2020/01/02T00:00, Europe/Paris");
+    long[] epochMillis = new long[column.size()];
+    BitSet failed = DateTimeFormats.parseColumn(column, epochMillis);
+    assertThat(failed.stream().boxed().collect(toList())).containsExactly(0, 1, 3);
+    assertThat(epochMillis[2])
+        .isEqualTo(Instant.parse("2020-01-01T08:00:00Z").toEpochMilli());
+    assertThat(epochMillis[4])
+        .isEqualTo(Instant.parse("2020-01-01T23:00:00Z").toEpochMilli());
+  }
+
+  @Test
+  public void parseColumn_largeColumn() {
+    List<String> column = largeColumn(new ArrayList<>());
+    long[] epochMillis = new long[column.size()];
+    BitSet failed = DateTimeFormats.parseColumn(column, epochMillis);
+    assertThat(failed.cardinality()).isEqualTo(10);
+    assertThat(epochMillis[1])
+        .isEqualTo(Instant.parse("2020-01-01T09:00:01Z").toEpochMilli());
+    assertThat(epochMillis[9999])
+        .isEqualTo(Instant.parse("2020-01-01T09:00:39Z").toEpochMilli());
+  }
+
+  @Test
+  public void parseColumn_linkedList() {
+    List<String> column = largeColumn(new LinkedList<>());
+    long[] epochMillis = new long[column.size()];
+    BitSet failed = DateTimeFormats.parseColumn(column, epochMillis);
+    assertThat(failed.cardinality()).isEqualTo(10);
+    assertThat(failed.get(7)).isTrue();
+    assertThat(epochMillis[9999])
+        .isEqualTo(Instant.parse("2020-01-01T09:00:39Z").toEpochMilli());
+  }
+
+  @Test
+  public void parseColumnInParallel_sameAsSequential() {
+    List<String> column = largeColumn(new LinkedList<>());
+    column.set(5000, "2020-01-01T00:00:00Z");
+    column.set(6000, "2020/01/01T00:00, America/Los_Angeles");
+    long[] sequential = new long[column.size()];
+    long[] parallel = new long[column.size()];
+    assertThat(DateTimeFormats.parseColumnInParallel(column, parallel))
+        .isEqualTo(DateTimeFormats.parseColumn(column, sequential));
+    assertThat(parallel).isEqualTo(sequential);
+  }
+
+  @Test
+  public void parseColumnInParallel_emptyColumn() {
+    assertThat(DateTimeFormats.parseColumnInParallel(new ArrayList<>(), new long[0]).isEmpty())
+        .isTrue();
+  }
+
+  @Test
+  public void parseColumnInParallel_outputTooShort() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> DateTimeFormats.parseColumnInParallel(asList("2020-01-01T00:00:00Z"), new long[0]));
+  }
+
+  @Test
+  public void parseColumn_emptyColumn() {
+    assertThat(DateTimeFormats.parseColumn(new ArrayList<>(), new long[0]).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void parseColumn_outputTooShort() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> DateTimeFormats.parseColumn(asList("2020-01-01T00:00:00Z"), new long[0]));
+  }
+
   @Test
   public void parseToInstant_invalid()
       throws Exception {
@@ -1250,4 +1483,14 @@ public final class DateTimeFormatsTest {
     assertThat(ZonedDateTime.parse(time.format(DateTimeFormatter.ofPattern(pattern)), formatter))
         .isEqualTo(time);
   }
+
+  private static List<String> largeColumn(List<String> column) {
+    for (int i = 0; i < 10000; i++) {
+      column.add(
+          i % 1000 == 7
+              ? "not a date"
+              : "2020-01-01 10:00:" + String.format("%02d", i % 60) + " Europe/Paris");
+    }
+    return column;
+  }
 }
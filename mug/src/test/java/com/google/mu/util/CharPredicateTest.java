@@ -108,6 +108,44 @@ public class CharPredicateTest {
     assertThat(CharPredicate.anyOf("ab").matchesAllOf("c")).isFalse();
   }
 
+  @Test public void testPrecomputed() {
+    CharPredicate predicate =
+        CharPredicate.range('a', 'z')
+            .or(CharPredicate.anyOf("_\u4e2d"))
+            .and(CharPredicate.is('q').not());
+    CharPredicate precomputed = predicate.precomputed();
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      assertThat(precomputed.test((char) c)).isEqualTo(predicate.test((char) c));
+    }
+  }
+
+  @Test public void testPrecomputed_idempotent() {
+    CharPredicate precomputed = CharPredicate.is('a').precomputed();
+    assertThat(precomputed.precomputed()).isSameInstanceAs(precomputed);
+  }
+
+  @Test public void testPrecomputed_toString() {
+    assertThat(CharPredicate.is('c').orRange('A', 'Z').precomputed().toString())
+        .isEqualTo("'c' | ['A', 'Z']");
+  }
+
+  @Test public void testAsciiTable() {
+    CharPredicate predicate = CharPredicate.range('0', '9').or(CharPredicate.anyOf("\u00e9_"));
+    CharPredicate table = CharTable.ascii(predicate);
+    for (int c = 0; c <= Character.MAX_VALUE; c++) {
+      assertThat(table.test((char) c)).isEqualTo(predicate.test((char) c));
+    }
+    assertThat(table.toString()).isEqualTo(predicate.toString());
+    assertThat(CharTable.ascii(table)).isSameInstanceAs(table);
+  }
+
+  @Test public void testConstants() {
+    assertThat(CharPredicate.ALPHA.matchesAllOf("azAZ")).isTrue();
+    assertThat(CharPredicate.ALPHA.matchesAnyOf("09_\u00e9")).isFalse();
+    assertThat(CharPredicate.WORD.matchesAllOf("azAZ09_")).isTrue();
+    assertThat(CharPredicate.WORD.matchesAnyOf("-. \u00e9")).isFalse();
+  }
+
   @Test public void testNulls() throws Throwable {
     CharPredicate p = CharPredicate.is('a');
     new NullPointerTester().testAllPublicInstanceMethods(p);
@@ -7,8 +7,17 @@ import static com.google.common.truth.Truth8.assertThat;
 import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -675,6 +684,264 @@ public class StringFormatTest {
         .hasValue(ImmutableList.of("0/a", "b", "c", "d", "e"));
   }
 
+  @Test
+  public void replaceAllFrom_toAppendable() throws IOException {
+    StringFormat format = new StringFormat("[{key}:{value}]");
+    StringBuilder output = new StringBuilder();
+    assertThat(format.replaceAllFrom("x[a:1] [b:2]y", m -> m.get(0) + "=" + m.get(1), output))
+        .isSameInstanceAs(output);
+    assertThat(output.toString()).isEqualTo("xa=1 b=2y");
+    assertThat(format.replaceAllFrom("[a:1][b:2]", m -> null, new StringWriter()).toString())
+        .isEqualTo("[a:1][b:2]");
+  }
+
+  @Test
+  public void replaceAllFromReader_redaction() throws IOException {
+    StringFormat format = new StringFormat("ssn={ssn};");
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      input.append("name=n").append(i).append(";ssn=").append(i * 7).append(";");
+    }
+    assertThat(
+            format
+                .replaceAllFrom(trickle(input.toString()), 20, m -> "ssn=***;", new StringWriter())
+                .toString())
+        .isEqualTo(format.replaceAllFrom(input.toString(), ssn -> "ssn=***;"));
+  }
+
+  @Test
+  public void replaceAllFromReader_nullReplacementKeepsOccurrence() throws IOException {
+    StringFormat format = new StringFormat("<{n}>");
+    assertThat(
+            format
+                .replaceAllFrom(
+                    trickle("<1><22><333>"),
+                    10,
+                    m -> m.get(0).length() == 2 ? null : "#",
+                    new StringBuilder())
+                .toString())
+        .isEqualTo("#<22>#");
+  }
+
+  @Test
+  public void scanReader_singlePlaceholder() {
+    StringFormat format = new StringFormat("[id={id}]");
+    assertThat(format.scan(trickle("[id=foo] [id=bar][id=]x"), 10, id -> id))
+        .containsExactly("foo", "bar", "")
+        .inOrder();
+    assertThat(format.scan(trickle("id=1"), 10, id -> id)).isEmpty();
+  }
+
+  @Test
+  public void scanReader_nullFilteredOut() {
+    assertThat(
+            new StringFormat("[id={id}]")
+                .scan(trickle("[id=foo][id=]"), 10, id -> id.isEmpty() ? null : id))
+        .containsExactly("foo");
+  }
+
+  @Test
+  public void scanReader_twoPlaceholders() {
+    StringFormat format = new StringFormat("{key}={value};");
+    String input = "k1=v1;key2=value2;bad";
+    assertThat(format.scan(trickle(input), 20, (k, v) -> k + ":" + v))
+        .containsExactlyElementsIn(
+            format.scan(input, (k, v) -> k + ":" + v).collect(toImmutableList()))
+        .inOrder();
+  }
+
+  @Test
+  public void scanReader_leadingPlaceholder_sameAsScanString() {
+    StringFormat format = new StringFormat("{key}={value};");
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      input.append("k").append(i).append("=v").append(i).append(";x ");
+    }
+    assertThat(format.scan(new StringReader(input.toString()), 20, (k, v) -> k + ":" + v))
+        .containsExactlyElementsIn(
+            format.scan(input.toString(), (k, v) -> k + ":" + v).collect(toImmutableList()))
+        .inOrder();
+  }
+
+  @Test
+  public void scanReader_placeholderAtEnd_disallowed() {
+    StringFormat format = new StringFormat("name: {name}");
+    assertThrows(
+        IllegalArgumentException.class, () -> format.scan(trickle("x name: foo bar"), 20, n -> n));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new StringFormat("{k}={v}").scan(trickle("k=v"), 20, (k, v) -> k));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> format.replaceAllFrom(trickle("name: x"), 20, n -> "", new StringBuilder()));
+  }
+
+  @Test
+  public void scanReader_largeInput() {
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      input.append("<").append(i).append(">");
+    }
+    assertThat(
+            new StringFormat("<{n}>")
+                .scan(new StringReader(input.toString()), 10, n -> Integer.parseInt(n))
+                .mapToInt(n -> n)
+                .sum())
+        .isEqualTo(9999 * 10000 / 2);
+  }
+
+  @Test
+  public void scanReader_wrongNumberOfPlaceholders() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new StringFormat("{a}-{b}").scan(trickle(""), 10, a -> a));
+  }
+
+  @Test
+  public void parseInto_ints() {
+    StringFormat format = new StringFormat("shard-{id}-of-{total}");
+    StringFormat.Fields fields = format.newFields();
+    assertThat(format.parseInto("shard-3-of-10", fields)).isTrue();
+    assertThat(fields.size()).isEqualTo(2);
+    assertThat(fields.intAt(0)).isEqualTo(3);
+    assertThat(fields.intAt(1)).isEqualTo(10);
+    assertThat(fields.longAt(1)).isEqualTo(10L);
+    assertThat(fields.toString()).isEqualTo("[3, 10]");
+    assertThat(format.parseInto(new StringBuilder("shard--7-of-+8"), fields)).isTrue();
+    assertThat(fields.intAt(0)).isEqualTo(-7);
+    assertThat(fields.intAt(1)).isEqualTo(8);
+  }
+
+  @Test
+  public void parseInto_offsetsAndViews() {
+    StringFormat format = new StringFormat("projects/{project}/locations/{...}/jobs/{job}");
+    StringFormat.Fields fields = format.newFields();
+    String input = "projects/p1/locations/us/jobs/j-2";
+    assertThat(format.parseInto(input, fields)).isTrue();
+    assertThat(fields.size()).isEqualTo(2);
+    assertThat(fields.get(0).toString()).isEqualTo("p1");
+    assertThat(fields.get(1).toString()).isEqualTo("j-2");
+    assertThat(fields.start(1)).isEqualTo(input.indexOf("j-2"));
+    assertThat(fields.end(1)).isEqualTo(input.length());
+  }
+
+  @Test
+  public void parseInto_sameAsParse() {
+    StringFormat format = new StringFormat("{a}-{b}.{c}");
+    StringFormat.Fields fields = format.newFields();
+    for (String input : asList("1-2.3", "a-b-c.d.e", "-.", "1-2", "x.y-z", "a-b.")) {
+      boolean parsed = format.parseInto(input, fields);
+      assertWithMessage(input)
+          .that(parsed ? fields.toString() : null)
+          .isEqualTo(
+              format.parse(input, (a, b, c) -> "[" + a + ", " + b + ", " + c + "]").orElse(null));
+    }
+  }
+
+  @Test
+  public void parseInto_mismatch() {
+    StringFormat format = new StringFormat("shard-{id}");
+    StringFormat.Fields fields = format.newFields();
+    assertThat(format.parseInto("shard-1", fields)).isTrue();
+    assertThat(format.parseInto("chard-1", fields)).isFalse();
+    assertThrows(IllegalStateException.class, () -> fields.intAt(0));
+  }
+
+  @Test
+  public void parseInto_noPlaceholder() {
+    StringFormat format = new StringFormat("constant");
+    StringFormat.Fields fields = format.newFields();
+    assertThat(format.parseInto("constant", fields)).isTrue();
+    assertThat(fields.size()).isEqualTo(0);
+    assertThat(format.parseInto("constant2", fields)).isFalse();
+  }
+
+  @Test
+  public void parseInto_invalidNumbers() {
+    StringFormat format = new StringFormat("<{n}>");
+    StringFormat.Fields fields = format.newFields();
+    for (String bad : asList("", "-", "+", "1a", "2147483648", "-2147483649", "1 ")) {
+      assertThat(format.parseInto("<" + bad + ">", fields)).isTrue();
+      assertThrows(NumberFormatException.class, () -> fields.intAt(0));
+    }
+    assertThat(format.parseInto("<2147483648>", fields)).isTrue();
+    assertThat(fields.longAt(0)).isEqualTo(2147483648L);
+    assertThat(format.parseInto("<-2147483648>", fields)).isTrue();
+    assertThat(fields.intAt(0)).isEqualTo(Integer.MIN_VALUE);
+    assertThat(format.parseInto("<9223372036854775807>", fields)).isTrue();
+    assertThat(fields.longAt(0)).isEqualTo(Long.MAX_VALUE);
+    assertThat(format.parseInto("<-9223372036854775808>", fields)).isTrue();
+    assertThat(fields.longAt(0)).isEqualTo(Long.MIN_VALUE);
+    assertThat(format.parseInto("<9223372036854775808>", fields)).isTrue();
+    assertThrows(NumberFormatException.class, () -> fields.longAt(0));
+  }
+
+  @Test
+  public void parseInto_fieldsFromAnotherFormat() {
+    StringFormat format = new StringFormat("{a}");
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> format.parseInto("x", new StringFormat("{a}").newFields()));
+  }
+
+  @Test
+  public void scanInto_keyValues() {
+    StringFormat format = new StringFormat("{key}={value};");
+    StringFormat.Fields fields = format.newFields();
+    List<String> found = new ArrayList<>();
+    int count =
+        format.scanInto(
+            new StringBuilder("a=1; b=2; c=3;"),
+            fields,
+            kv -> found.add(kv.get(0) + ":" + kv.intAt(1)));
+    assertThat(count).isEqualTo(3);
+    assertThat(found).containsExactly("a:1", " b:2", " c:3").inOrder();
+  }
+
+  @Test
+  public void scanInto_stopsEarly() {
+    StringFormat format = new StringFormat("[{n}]");
+    StringFormat.Fields fields = format.newFields();
+    List<Integer> seen = new ArrayList<>();
+    int count =
+        format.scanInto(
+            "[1] [2] [3] [4]",
+            fields,
+            f -> {
+              seen.add(f.intAt(0));
+              return f.intAt(0) < 2;
+            });
+    assertThat(count).isEqualTo(2);
+    assertThat(seen).containsExactly(1, 2).inOrder();
+    assertThrows(IllegalStateException.class, () -> fields.intAt(0));
+  }
+
+  @Test
+  public void scanInto_sameAsScanAsLists() {
+    for (String template : asList("", "x", "{a}", "{a},", "<{a}>", "{a}-{b}.{c}", "{a}={...};")) {
+      StringFormat format = new StringFormat(template);
+      StringFormat.Fields fields = format.newFields();
+      for (String input : asList("", ",", "x", "xx", "<1><2>", "1-2.3 4-5.6", "a=b;c=d;", "a,b,")) {
+        List<String> scanned = new ArrayList<>();
+        int count = format.scanInto(input, fields, f -> scanned.add(f.toString()));
+        assertWithMessage(template + " on " + input)
+            .that(scanned)
+            .containsExactlyElementsIn(
+                format.scanAsLists(input).map(Object::toString).collect(toImmutableList()))
+            .inOrder();
+        assertThat(count).isEqualTo(scanned.size());
+      }
+    }
+  }
+
+  @Test
+  public void scanInto_fieldsFromAnotherFormat() {
+    StringFormat format = new StringFormat("{a}");
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> format.scanInto("x", new StringFormat("{a}").newFields(), f -> true));
+  }
+
   @Test
   public void scan_emptyTemplate_nonEmptyInput() {
     assertThat(new StringFormat("").scanAsLists("."))
@@ -1647,6 +1914,255 @@ public class StringFormatTest {
     assertThat(StringFormat.using("{a} + {b} = {c}", 1, 2, "")).isEqualTo("1 + 2 = ");
   }
 
+  @Test
+  public void formatTo_stringBuilder_appendsToExistingContent() {
+    StringBuilder builder = new StringBuilder("> ");
+    StringFormat format = new StringFormat("{a} + {b} = {c}");
+    assertThat(format.formatTo(builder, 1, 2, 3)).isSameInstanceAs(builder);
+    assertThat(format.formatTo(builder.append("; "), "x", null, "")).isSameInstanceAs(builder);
+    assertThat(builder.toString()).isEqualTo("> 1 + 2 = 3; x + null = ");
+  }
+
+  @Test
+  public void formatTo_writer() throws IOException {
+    StringWriter writer = new StringWriter();
+    StringFormat format = new StringFormat("{key}={value}\n");
+    assertThat(format.formatTo(writer, "k1", new StringBuilder("v1"))).isSameInstanceAs(writer);
+    format.formatTo(writer, "k2", 2);
+    assertThat(writer.toString()).isEqualTo("k1=v1\nk2=2\n");
+  }
+
+  @Test
+  public void formatTo_noPlaceholder() throws IOException {
+    assertThat(new StringFormat("hello").formatTo(new StringBuilder()).toString())
+        .isEqualTo("hello");
+    assertThat(new StringFormat("hello").formatTo(new StringWriter()).toString())
+        .isEqualTo("hello");
+  }
+
+  @Test
+  @SuppressWarnings("StringFormatArgsCheck")
+  public void formatTo_wrongNumberOfArgs() {
+    StringBuilder builder = new StringBuilder();
+    assertThrows(
+        IllegalArgumentException.class, () -> new StringFormat("{foo}:{bar}").formatTo(builder, 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new StringFormat("{foo}:{bar}").formatTo(new StringWriter(), 1, 2, 3));
+    assertThat(builder.toString()).isEmpty();
+  }
+
+  @Test
+  public void router_routesToMatchingTemplate() {
+    StringFormat.Router<String> router =
+        StringFormat.Router.<String>builder()
+            .add(new StringFormat("projects/{p}/locations/{l}"), m -> "location " + m)
+            .add(new StringFormat("projects/{p}"), m -> "project " + m.get(0))
+            .add(new StringFormat("users/{u}"), m -> "user " + m.get(0))
+            .add(new StringFormat("{kind}:{id}"), m -> "id " + m)
+            .build();
+    assertThat(router.route("projects/foo").get()).isEqualTo("project foo");
+    assertThat(router.route("projects/foo/locations/us").get()).isEqualTo("location [foo, us]");
+    assertThat(router.route("users/joe").get()).isEqualTo("user joe");
+    assertThat(router.route("job:123").get()).isEqualTo("id [job, 123]");
+    assertThat(router.route("groups/g1")).isEmpty();
+    assertThat(router.route("")).isEmpty();
+  }
+
+  @Test
+  public void router_longerLeadingLiteralTriedFirst() {
+    StringFormat.Router<String> router =
+        StringFormat.Router.<String>builder()
+            .add(new StringFormat("{any}"), m -> "any")
+            .add(new StringFormat("a/{x}"), m -> "a")
+            .add(new StringFormat("a/b/{x}"), m -> "a/b")
+            .build();
+    assertThat(router.route("a/b/c").get()).isEqualTo("a/b");
+    assertThat(router.route("a/c").get()).isEqualTo("a");
+    assertThat(router.route("c").get()).isEqualTo("any");
+  }
+
+  @Test
+  public void router_sameLeadingLiteralTriedInOrderOfAddition() {
+    StringFormat.Router<String> router =
+        StringFormat.Router.<String>builder()
+            .add(new StringFormat("v/{a}-{b}"), m -> "dash")
+            .add(new StringFormat("v/{a}"), m -> "single")
+            .add(new StringFormat("v/{a}.{b}"), m -> "dot")
+            .build();
+    assertThat(router.route("v/x-y").get()).isEqualTo("dash");
+    assertThat(router.route("v/x.y").get()).isEqualTo("single");
+  }
+
+  @Test
+  public void router_nullHandlerResultFallsThrough() {
+    StringFormat.Router<String> router =
+        StringFormat.Router.<String>builder()
+            .add(new StringFormat("id/{id}"), m -> m.get(0).length() > 3 ? null : "short")
+            .add(new StringFormat("{path}"), m -> "fallback")
+            .build();
+    assertThat(router.route("id/123").get()).isEqualTo("short");
+    assertThat(router.route("id/12345").get()).isEqualTo("fallback");
+  }
+
+  @Test
+  public void router_branchingLeadingLiterals() {
+    StringFormat.Router.Builder<String> builder =
+        StringFormat.Router.<String>builder()
+            .add(new StringFormat("ab{x}"), m -> "ab")
+            .add(new StringFormat("ac{x}"), m -> "ac")
+            .add(new StringFormat("abd{x}"), m -> "abd");
+    StringFormat.Router<String> router = builder.build();
+    builder.add(new StringFormat("a{x}"), m -> "a");
+    assertThat(router.route("abdx").get()).isEqualTo("abd");
+    assertThat(router.route("abx").get()).isEqualTo("ab");
+    assertThat(router.route("acx").get()).isEqualTo("ac");
+    assertThat(router.route("adx")).isEmpty();
+    assertThat(builder.build().route("adx").get()).isEqualTo("a");
+  }
+
+  @Test
+  public void router_manyTemplatesSharingLeadingLiteral() {
+    StringFormat.Router.Builder<String> builder = StringFormat.Router.builder();
+    for (int i = 0; i < 300; i++) {
+      String kind = "kind" + i;
+      builder.add(new StringFormat("projects/{p}/" + kind + "/{id}:get"), m -> kind + ":get " + m);
+      builder.add(new StringFormat("projects/{p}/" + kind + "/{id}"), m -> kind + " " + m);
+    }
+    builder.add(new StringFormat("projects/{p}"), m -> "project " + m);
+    StringFormat.Router<String> router = builder.build();
+    assertThat(router.route("projects/foo/kind7/x").get()).isEqualTo("kind7 [foo, x]");
+    assertThat(router.route("projects/foo/kind299/x:get").get())
+        .isEqualTo("kind299:get [foo, x]");
+    assertThat(router.route("projects/foo/kind300/x").get())
+        .isEqualTo("project [foo/kind300/x]");
+    assertThat(router.route("projects/").get()).isEqualTo("project []");
+    assertThat(router.route("project/foo")).isEmpty();
+  }
+
+  @Test
+  public void router_placeholderEndsAtFirstOccurrenceOfNextFragment() {
+    StringFormat.Router<String> router =
+        StringFormat.Router.<String>builder()
+            .add(new StringFormat("{a}/b/{c}"), m -> "b " + m)
+            .add(new StringFormat("{a}/{c}"), m -> "slash " + m)
+            .add(new StringFormat("{a}.txt"), m -> "txt " + m)
+            .build();
+    assertThat(router.route("x/b/y/b/z").get()).isEqualTo("b [x, y/b/z]");
+    assertThat(router.route("x/y/b/z").get()).isEqualTo("b [x/y, z]");
+    assertThat(router.route("x/y/z").get()).isEqualTo("slash [x, y/z]");
+    assertThat(router.route("x.txt.txt").get()).isEqualTo("txt [x.txt]");
+    assertThat(router.route(".txt").get()).isEqualTo("txt []");
+    assertThat(router.route("txt")).isEmpty();
+  }
+
+  @Test
+  public void router_sameAsTryingEachTemplate() {
+    Random random = new Random(1);
+    for (int round = 0; round < 200; round++) {
+      List<StringFormat> formats = new ArrayList<>();
+      StringFormat.Router.Builder<String> builder = StringFormat.Router.builder();
+      for (int i = 0; i < 8; i++) {
+        StringFormat format = new StringFormat(randomTemplate(random));
+        formats.add(format);
+        int id = i;
+        builder.add(format, m -> m.size() == 1 && m.get(0).length() == 1 ? null : id + " " + m);
+      }
+      StringFormat.Router<String> router = builder.build();
+      List<StringFormat> byLeadingLiteral = new ArrayList<>(formats);
+      byLeadingLiteral.sort(
+          Comparator.comparingInt((StringFormat f) -> -f.fragments.get(0).length()));
+      for (int i = 0; i < 50; i++) {
+        String input = randomString(random, random.nextInt(8));
+        Optional<String> expected = Optional.empty();
+        for (StringFormat format : byLeadingLiteral) {
+          int id = formats.indexOf(format);
+          Optional<String> result =
+              format
+                  .parseAsList(input)
+                  .map(m -> m.size() == 1 && m.get(0).length() == 1 ? null : id + " " + m);
+          if (result.isPresent()) {
+            expected = result;
+            break;
+          }
+        }
+        assertWithMessage("%s routed by %s", input, formats)
+            .that(router.route(input))
+            .isEqualTo(expected);
+      }
+    }
+  }
+
+  private static String randomTemplate(Random random) {
+    StringBuilder template = new StringBuilder(randomString(random, random.nextInt(3)));
+    int placeholders = random.nextInt(3);
+    for (int i = 0; i < placeholders; i++) {
+      template.append("{p").append(i).append("}");
+      int length = i < placeholders - 1 ? 1 + random.nextInt(2) : random.nextInt(3);
+      template.append(randomString(random, length));
+    }
+    return template.toString();
+  }
+
+  private static String randomString(Random random, int length) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      builder.append("ab/".charAt(random.nextInt(3)));
+    }
+    return builder.toString();
+  }
+
+  @Test
+  public void router_placeholdersNextToEachOther_disallowed() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> StringFormat.Router.<String>builder().add(new StringFormat("{a}{b}"), m -> "x"));
+  }
+
+  @Test
+  public void using_templateParsedOnce() {
+    String template = "{a} - {b} cached";
+    long misses = StringFormat.USING_CACHE.misses();
+    long hits = StringFormat.USING_CACHE.hits();
+    assertThat(StringFormat.using(template, 1, 2)).isEqualTo("1 - 2 cached");
+    assertThat(StringFormat.using(template, 3, 4)).isEqualTo("3 - 4 cached");
+    assertThat(StringFormat.USING_CACHE.misses()).isAtMost(misses + 1);
+    assertThat(StringFormat.USING_CACHE.hits()).isAtLeast(hits + 1);
+  }
+
+  @Test
+  @SuppressWarnings("StringFormatArgsCheck")
+  public void using_wrongNumberOfArgs_errorMessage() {
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, () -> StringFormat.using("{foo}:{bar}", 1));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("2 placeholders expected in {foo}:{bar}, 1 provided");
+  }
+
+  @Test
+  public void boundedCache_evictsWhenFull() {
+    BoundedCache<Integer, String> cache = new BoundedCache<>(2);
+    assertThat(cache.get(1, String::valueOf)).isEqualTo("1");
+    assertThat(cache.get(2, String::valueOf)).isEqualTo("2");
+    assertThat(cache.get(1, String::valueOf)).isEqualTo("1");
+    assertThat(cache.get(3, String::valueOf)).isEqualTo("3");
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.hits()).isEqualTo(1);
+    assertThat(cache.misses()).isEqualTo(3);
+  }
+
+  @Test
+  public void boundedCache_keepsRecentlyUsedEntry() {
+    BoundedCache<Object, String> cache = new BoundedCache<>(10);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(cache.get("hot", String::valueOf)).isEqualTo("hot");
+      assertThat(cache.get(i, String::valueOf)).isEqualTo(String.valueOf(i));
+    }
+    assertThat(cache.size()).isEqualTo(10);
+    assertThat(cache.misses()).isEqualTo(1001);
+  }
+
   @Test
   @SuppressWarnings("StringFormatArgsCheck")
   public void format_tooFewArgs() {
@@ -1856,10 +2372,21 @@ public class StringFormatTest {
 
   @Test
   public void testNulls() throws Exception {
-    new ClassSanityTester().testNulls(StringFormat.class);
+    new ClassSanityTester()
+        .setDefault(StringFormat.Fields.class, new StringFormat("{a}").newFields())
+        .testNulls(StringFormat.class);
     new ClassSanityTester().forAllPublicStaticMethods(StringFormat.class).testNulls();
   }
 
+  /** Returns a Reader that reads at most 3 chars at a time, to exercise chunk boundaries. */
+  private static Reader trickle(String input) {
+    return new FilterReader(new StringReader(input)) {
+      @Override public int read(char[] buf, int off, int len) throws IOException {
+        return super.read(buf, off, Math.min(len, 3));
+      }
+    };
+  }
+
   private static OptionalSubject assertPatternMatch(Substring.Pattern pattern, String input) {
     return assertWithMessage(pattern.toString())
         .about(OptionalSubject.optionals())
@@ -4,6 +4,9 @@ import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
 import static java.util.Arrays.asList;
 
+import java.util.ArrayList;
+import java.util.List;
+
 final class SubstringPatternAssertion {
   private final Substring.Pattern pattern;
   private final String input;
@@ -18,6 +21,7 @@ final class SubstringPatternAssertion {
     assertThat(pattern.from(input)).isEmpty();
     assertThat(pattern.repeatedly().from(input)).isEmpty();
     assertThat(pattern.repeatedly().match(input).limit(10)).isEmpty();
+    assertThat(cursorFrom(10)).isEmpty();
     assertThat(pattern.split(input)).isEqualTo(BiOptional.empty());
     assertThat(pattern.splitThenTrim(input)).isEqualTo(BiOptional.empty());
     assertThat(pattern.repeatedly().split(input).map(Substring.Match::toString))
@@ -31,6 +35,9 @@ final class SubstringPatternAssertion {
     assertThat(pattern.repeatedly().from(input).limit(findings.length + 10))
         .containsExactlyElementsIn(asList(findings))
         .inOrder();
+    assertThat(cursorFrom(findings.length + 10))
+        .containsExactlyElementsIn(asList(findings))
+        .inOrder();
   }
 
   void findsBetween(String before, String after) {
@@ -107,4 +114,14 @@ final class SubstringPatternAssertion {
     assertThat(pattern.splitThenTrim(input).map((a, b) -> a)).hasValue(left);
     assertThat(pattern.splitThenTrim(input).map((a, b) -> b)).hasValue(right);
   }
-}
\ No newline at end of file
+
+  private List<String> cursorFrom(int maxMatches) {
+    List<String> found = new ArrayList<>();
+    Substring.Cursor cursor = pattern.repeatedly().cursor(input);
+    while (found.size() < maxMatches && cursor.next()) {
+      assertThat(cursor.toMatch().toString()).isEqualTo(cursor.toString());
+      found.add(input.substring(cursor.start(), cursor.end()));
+    }
+    return found;
+  }
+}
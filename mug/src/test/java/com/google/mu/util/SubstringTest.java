@@ -19,10 +19,22 @@ import static com.google.mu.util.Substring.trailing;
 import static com.google.mu.util.Substring.upToIncluding;
 import static com.google.mu.util.Substring.BoundStyle.INCLUSIVE;
 import static java.util.Collections.nCopies;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Spliterator;
 import java.util.function.Function;
 import java.util.regex.Pattern;
@@ -35,6 +47,7 @@ import org.junit.runners.JUnit4;
 
 import com.google.common.base.Ascii;
 import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.LinkedListMultimap;
@@ -1529,6 +1542,44 @@ public class SubstringTest {
     assertThat(Substring.first("var").repeatedly().replaceAllFrom("var=x", m -> "v")).isEqualTo("v=x");
   }
 
+  @Test public void splitOffsets() {
+    assertThat(first(',').repeatedly().splitOffsets("a,bc,,d")).asList()
+        .containsExactly(0, 1, 2, 4, 5, 5, 6, 7)
+        .inOrder();
+    assertThat(first(',').repeatedly().splitOffsets("")).asList().containsExactly(0, 0);
+    assertThat(first(',').repeatedly().splitOffsets(",")).asList()
+        .containsExactly(0, 0, 1, 1)
+        .inOrder();
+    assertThat(first("::").repeatedly().splitOffsets(new StringBuilder("foo"))).asList()
+        .containsExactly(0, 3)
+        .inOrder();
+  }
+
+  @Test public void splitThenTrimOffsets() {
+    assertThat(first(',').repeatedly().splitThenTrimOffsets(" a , b,  ,c ")).asList()
+        .containsExactly(1, 2, 5, 6, 9, 9, 10, 11)
+        .inOrder();
+  }
+
+  @Test public void splitOffsets_sameAsSplit() {
+    String input = repeat("a, bb,ccc ,, dddd,", 10);
+    for (Substring.RepeatingPattern pattern :
+        ImmutableList.of(
+            first(',').repeatedly(), first(", ").repeatedly(), consecutive(DIGIT).repeatedly())) {
+      int[] offsets = pattern.splitOffsets(input);
+      int[] trimmed = pattern.splitThenTrimOffsets(input);
+      List<Match> parts = pattern.split(input).collect(toList());
+      List<Match> trimmedParts = pattern.splitThenTrim(input).collect(toList());
+      assertThat(offsets).hasLength(2 * parts.size());
+      for (int i = 0; i < parts.size(); i++) {
+        assertThat(offsets[2 * i]).isEqualTo(parts.get(i).index());
+        assertThat(offsets[2 * i + 1]).isEqualTo(parts.get(i).index() + parts.get(i).length());
+        assertThat(input.substring(trimmed[2 * i], trimmed[2 * i + 1]))
+            .isEqualTo(trimmedParts.get(i).toString());
+      }
+    }
+  }
+
   @Test public void delimit() {
     assertThat(first(',').repeatedly().split("foo").map(Match::toString))
         .containsExactly("foo");
@@ -2796,6 +2847,562 @@ public class SubstringTest {
     assertThat(spanningInOrder("o", "bar", "car").in("foo bar cat")).isEmpty();
   }
 
+  @Test public void charSequence_in() {
+    CharBuffer buffer = CharBuffer.wrap("key=value");
+    Match match = first('=').in(buffer).get();
+    assertThat(match.index()).isEqualTo(3);
+    assertThat(match.before()).isEqualTo("key");
+    assertThat(match.after()).isEqualTo("value");
+    assertThat(match.fullString()).isEqualTo("key=value");
+    assertThat(first("value").in(buffer).map(Match::index)).hasValue(4);
+    assertThat(first("=").in(buffer, 4)).isEmpty();
+    assertThat(last("e").in(buffer).map(Match::index)).hasValue(8);
+    assertThat(last('k').in(buffer).map(Match::index)).hasValue(0);
+    assertThat(prefix("key").in(buffer)).isPresent();
+    assertThat(suffix("value").in(buffer).map(Match::index)).hasValue(4);
+    assertThat(first(Pattern.compile("=\\w+")).in(buffer).map(Match::toString)).hasValue("=value");
+    assertThat(first("x").in(buffer)).isEmpty();
+    assertThrows(IndexOutOfBoundsException.class, () -> first('=').in(buffer, 10));
+  }
+
+  @Test public void charSequence_matchIsView() {
+    StringBuilder builder = new StringBuilder("hello world");
+    Match match = Substring.word().in(builder).get();
+    builder.setCharAt(0, 'j');
+    assertThat(match.toString()).isEqualTo("jello");
+    assertThat(match.contentEquals("jello")).isTrue();
+    assertThat(match.isFollowedBy(" w")).isTrue();
+  }
+
+  @Test public void charSequence_repeatedly() {
+    CharBuffer buffer = CharBuffer.wrap("a, b,c");
+    assertThat(Substring.all(',').match(buffer).map(Match::index)).containsExactly(1, 4).inOrder();
+    assertThat(Substring.all(',').from(buffer)).containsExactly(",", ",");
+    assertThat(Substring.all(',').match(buffer, 2).map(Match::index)).containsExactly(4);
+    assertThat(Substring.all(',').split(buffer).map(Match::toString))
+        .containsExactly("a", " b", "c")
+        .inOrder();
+    assertThat(Substring.topLevelGroups(Pattern.compile("(\\w)\\W*(\\w)")).from(buffer))
+        .containsExactly("a", "b")
+        .inOrder();
+    assertThat(Substring.word().repeatedly().from(buffer)).containsExactly("a", "b", "c").inOrder();
+  }
+
+  @Test public void charSequence_split() {
+    CharBuffer buffer = CharBuffer.wrap(" k = v ");
+    assertThat(first('=').split(buffer).map((k, v) -> k + ":" + v)).hasValue(" k : v ");
+    assertThat(first('=').splitThenTrim(buffer).map((k, v) -> k + ":" + v)).hasValue("k:v");
+  }
+
+  @Test public void charSequence_cursor() {
+    Substring.Cursor cursor = Substring.all("ab").cursor(new StringBuilder("xabab"));
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.start()).isEqualTo(1);
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.start()).isEqualTo(3);
+    assertThat(cursor.toString()).isEqualTo("ab");
+    assertThat(cursor.next()).isFalse();
+  }
+
+  @Test public void cursor_noMatch() {
+    Substring.Cursor cursor = Substring.all(',').cursor("abc");
+    assertThat(cursor.next()).isFalse();
+    assertThrows(IllegalStateException.class, cursor::start);
+    assertThrows(IllegalStateException.class, cursor::end);
+    assertThrows(IllegalStateException.class, cursor::toMatch);
+    assertThat(cursor.toString()).isEqualTo("<cursor not at a match>");
+  }
+
+  @Test public void cursor_notStarted() {
+    Substring.Cursor cursor = Substring.all(',').cursor("a,b");
+    assertThrows(IllegalStateException.class, cursor::start);
+    assertThrows(IllegalStateException.class, cursor::end);
+    assertThrows(IllegalStateException.class, cursor::toMatch);
+    assertThat(cursor.toString()).isEqualTo("<cursor not at a match>");
+  }
+
+  @Test public void cursor_literal() {
+    Substring.Cursor cursor = Substring.all("::").cursor("a::b::::c");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.start()).isEqualTo(1);
+    assertThat(cursor.end()).isEqualTo(3);
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.start()).isEqualTo(4);
+    assertThat(cursor.toString()).isEqualTo("::");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.start()).isEqualTo(6);
+    assertThat(cursor.toMatch().before()).isEqualTo("a::b::");
+    assertThat(cursor.toMatch().after()).isEqualTo("c");
+    assertThat(cursor.next()).isFalse();
+    assertThat(cursor.next()).isFalse();
+  }
+
+  @Test public void cursor_emptyLiteral() {
+    Substring.Cursor cursor = Substring.all("").cursor("ab");
+    StringBuilder indexes = new StringBuilder();
+    while (cursor.next()) {
+      indexes.append(cursor.start()).append(cursor.end());
+    }
+    assertThat(indexes.toString()).isEqualTo("001122");
+  }
+
+  @Test public void cursor_nonLiteralPattern() {
+    Substring.Cursor cursor = before(first('/')).repeatedly().cursor("foo/bar/");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.toString()).isEqualTo("foo");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.toString()).isEqualTo("bar");
+    assertThat(cursor.next()).isFalse();
+  }
+
+  @Test public void cursor_manyLiteralsFirstOccurrence() {
+    Substring.Cursor cursor =
+        Stream.of("foo", "bar", "baz", "zoo")
+            .map(Substring::first)
+            .collect(firstOccurrence())
+            .repeatedly()
+            .cursor("zoobar-foo");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.toString()).isEqualTo("zoo");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.toString()).isEqualTo("bar");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.start()).isEqualTo(7);
+    assertThat(cursor.next()).isFalse();
+  }
+
+  @Test public void cursor_topLevelGroups() {
+    Substring.Cursor cursor =
+        Substring.topLevelGroups(Pattern.compile("(f+)(o+)")).cursor("ffoo");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.toString()).isEqualTo("ff");
+    assertThat(cursor.next()).isTrue();
+    assertThat(cursor.toString()).isEqualTo("oo");
+    assertThat(cursor.next()).isFalse();
+  }
+
+  @Test
+  public void fromReader_literalSpansChunks() {
+    assertThat(first("abc").repeatedly().from(trickle("xxabcyabcabc"), 3))
+        .containsExactly("abc", "abc", "abc");
+    assertThat(first("abc").repeatedly().from(trickle("xxabxabcyab"), 3)).containsExactly("abc");
+  }
+
+  @Test
+  public void fromReader_noMatch() {
+    assertThat(first("abc").repeatedly().from(trickle(""), 3)).isEmpty();
+    assertThat(first("abc").repeatedly().from(trickle("ababab"), 3)).isEmpty();
+  }
+
+  @Test
+  public void fromReader_consecutiveSpansChunks() {
+    assertThat(consecutive(DIGIT).repeatedly().from(trickle("a123456b78c9"), 10))
+        .containsExactly("123456", "78", "9")
+        .inOrder();
+  }
+
+  @Test
+  public void fromReader_sameAsFromString() {
+    String input = repeat("k1=v1; key22=value22; x=; =y;", 50);
+    for (Substring.RepeatingPattern pattern :
+        ImmutableList.of(
+            first(';').repeatedly(),
+            before(first(';')).repeatedly(),
+            Substring.between(first(' '), first('=')).repeatedly(),
+            consecutive(ALPHA).repeatedly(),
+            Stream.of(first("k1"), first("key22"), first("value"), first("=y"))
+                .collect(firstOccurrence())
+                .repeatedly(),
+            Substring.all("=v"))) {
+      assertThat(pattern.from(trickle(input), 20))
+          .containsExactlyElementsIn(pattern.from(input).collect(toList()))
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void fromReader_largeInput() {
+    String input = repeat("foo,bar,", 10000);
+    assertThat(first(",bar").repeatedly().from(new StringReader(input), 4).count())
+        .isEqualTo(10000);
+  }
+
+  @Test
+  public void fromReader_endAnchoredPattern() {
+    assertThat(after(last('/')).repeatedly().from(trickle("/foo/bar/baz"), 5))
+        .containsExactly("baz");
+  }
+
+  @Test
+  public void fromReader_anchoredPattern_sameAsFromString() {
+    assertThat(prefix("x").repeatedly().from(new StringReader("abx"), 1)).isEmpty();
+    assertThat(prefix("x").repeatedly().from(trickle("abx"), 1)).isEmpty();
+    String input = repeat("ab", 5000) + "1cd";
+    for (Substring.RepeatingPattern pattern :
+        ImmutableList.of(
+            prefix("ab").repeatedly(),
+            leading(ALPHA).repeatedly(),
+            BEGINNING.repeatedly(),
+            first("").extendTo(first("1")).repeatedly())) {
+      assertThat(pattern.from(new StringReader(input), 2))
+          .containsExactlyElementsIn(pattern.from(input).collect(toList()))
+          .inOrder();
+      assertThat(pattern.from(trickle("ab1cd"), 2))
+          .containsExactlyElementsIn(pattern.from("ab1cd").collect(toList()))
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void fromReader_searchingPatterns_noMatchInLargeInput() {
+    ImmutableList<Substring.RepeatingPattern> patterns =
+        ImmutableList.of(
+            first(Pattern.compile("b+")).repeatedly(),
+            Substring.between("(", ")").repeatedly(),
+            Substring.between(first('('), INCLUSIVE, first(')'), INCLUSIVE).repeatedly(),
+            spanningInOrder("<", ">").repeatedly(),
+            Substring.word().repeatedly());
+    for (Substring.RepeatingPattern pattern : patterns) {
+      // Without a match, only the last maxMatchLength chars of the window are kept.
+      assertThat(pattern.searchesForward()).isTrue();
+      assertThat(pattern.from(filler(' ', 4_000_000), 16)).isEmpty();
+    }
+    String input = repeat("  (b c) <bc> ", 3000);
+    for (Substring.RepeatingPattern pattern : patterns) {
+      assertThat(pattern.from(new StringReader(input), 16))
+          .containsExactlyElementsIn(pattern.from(input).collect(toList()))
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void fromReader_topLevelGroups_unsupported() {
+    Substring.RepeatingPattern groups = Substring.topLevelGroups(Pattern.compile("(b)(c)"));
+    assertThrows(UnsupportedOperationException.class, () -> groups.from(new StringReader("bc"), 2));
+    assertThrows(
+        UnsupportedOperationException.class, () -> groups.split(new StringReader("bc"), 2));
+  }
+
+  @Test
+  public void searchesForward_anchoredOperands() {
+    assertThat(Substring.between(first('('), prefix(")")).searchesForward()).isFalse();
+    assertThat(first('(').extendTo(prefix(")")).searchesForward()).isFalse();
+    assertThat(first('(').then(prefix(")")).searchesForward()).isFalse();
+    assertThat(first('(').peek(prefix(")")).searchesForward()).isFalse();
+    assertThat(prefix("(").extendTo(first(")")).searchesForward()).isFalse();
+    assertThat(before(first('/')).searchesForward()).isFalse();
+  }
+
+  @Test
+  public void fromReader_separatedBy_sameAsFromString() {
+    String input = repeat("foo food xfoo foo_ ", 1000);
+    for (Substring.RepeatingPattern pattern :
+        ImmutableList.of(
+            Substring.word("foo").repeatedly(),
+            first("foo").separatedBy(CharPredicate.is(' ')).repeatedly(),
+            prefix("foo").separatedBy(CharPredicate.is(' ')).repeatedly())) {
+      assertThat(pattern.from(new StringReader(input), 3))
+          .containsExactlyElementsIn(pattern.from(input).collect(toList()))
+          .inOrder();
+      assertThat(pattern.from(trickle(input), 3))
+          .containsExactlyElementsIn(pattern.from(input).collect(toList()))
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void fromReader_invalidMaxMatchLength() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> first('a').repeatedly().from(new StringReader("a"), 0));
+  }
+
+  @Test
+  public void fromReader_ioException() {
+    Reader broken = new Reader() {
+      @Override public int read(char[] buf, int off, int len) throws IOException {
+        throw new IOException("broken");
+      }
+      @Override public void close() {}
+    };
+    UncheckedIOException thrown =
+        assertThrows(
+            UncheckedIOException.class, () -> first('a').repeatedly().from(broken, 1).count());
+    assertThat(thrown).hasCauseThat().hasMessageThat().isEqualTo("broken");
+  }
+
+  @Test
+  public void splitReader_delimiterSpansChunks() {
+    assertThat(first("::").repeatedly().split(trickle("foo::barbaz::::x"), 2))
+        .containsExactly("foo", "barbaz", "", "x")
+        .inOrder();
+  }
+
+  @Test
+  public void splitReader_noDelimiter() {
+    assertThat(first(',').repeatedly().split(trickle("foo bar"), 1)).containsExactly("foo bar");
+    assertThat(first(',').repeatedly().split(trickle(""), 1)).containsExactly("");
+  }
+
+  @Test
+  public void splitReader_sameAsSplitString() {
+    String input = repeat("a, bb,ccc ,, dddd,", 30);
+    assertThat(first(',').repeatedly().split(trickle(input), 1))
+        .containsExactlyElementsIn(
+            first(',').repeatedly().split(input).map(Object::toString).collect(toList()))
+        .inOrder();
+    assertThat(consecutive(CharPredicate.is(' ').or(',')).repeatedly().split(trickle(input), 5))
+        .containsExactlyElementsIn(
+            consecutive(CharPredicate.is(' ').or(','))
+                .repeatedly()
+                .split(input)
+                .map(Object::toString)
+                .collect(toList()))
+        .inOrder();
+  }
+
+  @Test
+  public void splitReader_largeParts() {
+    String part = repeat("x", 20000);
+    assertThat(first(';').repeatedly().split(new StringReader(part + ";" + part), 1))
+        .containsExactly(part, part);
+  }
+
+  @Test
+  public void replaceAllFrom_toAppendable() throws IOException {
+    StringBuilder output = new StringBuilder(">");
+    assertThat(first('o').repeatedly().replaceAllFrom("foo bar", m -> "0", output))
+        .isSameInstanceAs(output);
+    assertThat(output.toString()).isEqualTo(">f00 bar");
+    StringWriter writer = new StringWriter();
+    assertThat(first('x').repeatedly().replaceAllFrom("foo", m -> "y", writer).toString())
+        .isEqualTo("foo");
+  }
+
+  @Test
+  public void replaceAllFromReader_sameAsReplaceAllFromString() throws IOException {
+    String input = repeat("ssn=123-45-6789, name=x; ", 1000);
+    Substring.RepeatingPattern ssn = consecutive(DIGIT.or('-')).repeatedly();
+    assertThat(ssn.replaceAllFrom(trickle(input), 20, m -> "***", new StringWriter()).toString())
+        .isEqualTo(ssn.replaceAllFrom(input, m -> "***"));
+    assertThat(
+            first("::").repeatedly()
+                .replaceAllFrom(trickle("a::b:::c::"), 2, m -> "/", new StringBuilder())
+                .toString())
+        .isEqualTo("a/b/:c/");
+  }
+
+  @Test
+  public void replaceAllFromReader_sameReplacementFunctionAsString() throws IOException {
+    Function<Substring.Match, String> replacement = m -> m.length() + "[" + m + "]";
+    String input = repeat("key=value; ", 500);
+    Substring.RepeatingPattern pattern = consecutive(ALPHA).repeatedly();
+    assertThat(
+            pattern.replaceAllFrom(trickle(input), 10, replacement, new StringBuilder()).toString())
+        .isEqualTo(pattern.replaceAllFrom(input, replacement));
+  }
+
+  @Test
+  public void replaceAllFromReader_matchHasNoContext() throws IOException {
+    assertThat(
+            first("b").repeatedly()
+                .replaceAllFrom(
+                    trickle("abc"),
+                    1,
+                    m -> m.before() + "|" + m.index() + "|" + m.after(),
+                    new StringBuilder())
+                .toString())
+        .isEqualTo("a|0|c");
+  }
+
+  @Test
+  public void replaceAllFromReader_anchoredPattern_sameAsReplaceAllFromString() throws IOException {
+    assertThat(
+            prefix("x").repeatedly()
+                .replaceAllFrom(new StringReader("abx"), 1, m -> "y", new StringBuilder())
+                .toString())
+        .isEqualTo("abx");
+    String input = repeat("ab", 5000) + "1cd";
+    for (Substring.RepeatingPattern pattern :
+        ImmutableList.of(
+            prefix("ab").repeatedly(),
+            BEGINNING.repeatedly(),
+            Substring.word("ab").repeatedly(),
+            first("ab").separatedBy(CharPredicate.is('b').not()).repeatedly())) {
+      assertThat(
+              pattern.replaceAllFrom(new StringReader(input), 2, m -> "<>", new StringBuilder())
+                  .toString())
+          .isEqualTo(pattern.replaceAllFrom(input, m -> "<>"));
+    }
+  }
+
+  @Test
+  public void replaceAllFromReader_noMatch() throws IOException {
+    String input = repeat("abc", 10000);
+    assertThat(
+            first("x").repeatedly()
+                .replaceAllFrom(new StringReader(input), 1, m -> "y", new StringWriter())
+                .toString())
+        .isEqualTo(input);
+    assertThat(
+            first("x").repeatedly()
+                .replaceAllFrom(trickle(""), 1, m -> "y", new StringWriter())
+                .toString())
+        .isEmpty();
+  }
+
+  @Test
+  public void replaceAllFromReader_replacementFunctionReturnsNull() {
+    StringWriter writer = new StringWriter();
+    assertThrows(
+        NullPointerException.class,
+        () -> first('a').repeatedly().replaceAllFrom(trickle("bab"), 1, m -> null, writer));
+  }
+
+  @Test
+  public void replaceAllFromReader_ioException() {
+    Reader broken = new Reader() {
+      @Override public int read(char[] buf, int off, int len) throws IOException {
+        throw new IOException("broken");
+      }
+      @Override public void close() {}
+    };
+    IOException thrown =
+        assertThrows(
+            IOException.class,
+            () -> first('a').repeatedly().replaceAllFrom(broken, 1, s -> "b", new StringWriter()));
+    assertThat(thrown).hasMessageThat().isEqualTo("broken");
+  }
+
+  @Test
+  public void first_longNeedle() {
+    String boundary = "--" + repeat("boundary", 6);
+    String input = "preamble" + boundary + "part1" + boundary + "part2" + boundary + "--";
+    assertThat(first(boundary).in(input).map(Substring.Match::index))
+        .hasValue(input.indexOf(boundary));
+    assertThat(first(boundary).repeatedly().match(input).map(Substring.Match::index))
+        .containsExactly(8, 8 + 50 + 5, 8 + 50 + 5 + 50 + 5)
+        .inOrder();
+    assertThat(first(boundary).repeatedly().split(input).map(Object::toString))
+        .containsExactly("preamble", "part1", "part2", "--")
+        .inOrder();
+    assertThat(first(boundary).in(input.substring(1, 57))).isEmpty();
+  }
+
+  @Test
+  public void last_longNeedle() {
+    String boundary = "--" + repeat("boundary", 6);
+    String input = "preamble" + boundary + "part1" + boundary + "--";
+    assertThat(last(boundary).in(input).map(Substring.Match::index))
+        .hasValue(input.lastIndexOf(boundary));
+    assertThat(last(boundary).in(boundary).map(Substring.Match::index)).hasValue(0);
+    assertThat(last(boundary).in(boundary.substring(1))).isEmpty();
+  }
+
+  @Test
+  public void longNeedle_sameAsIndexOf() {
+    // Chars that collide in the low byte (e.g. 'a' and '\u0161') exercise the shared skip slots.
+    String alphabet = "ab\u0161\u0162";
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      String needle = randomString(random, alphabet, 32 + random.nextInt(10));
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < 5; i++) {
+        builder.append(randomString(random, alphabet, random.nextInt(100)));
+        if (random.nextBoolean()) {
+          builder.append(needle);
+        }
+      }
+      String input = builder.toString();
+      assertThat(first(needle).repeatedly().match(input).map(Substring.Match::index))
+          .containsExactlyElementsIn(
+              first(needle).repeatedly().match(new StringBuilder(input)).map(Substring.Match::index)
+                  .collect(toList()))
+          .inOrder();
+      assertThat(first(needle).in(input).map(Substring.Match::index).orElse(-1))
+          .isEqualTo(input.indexOf(needle));
+      assertThat(last(needle).in(input).map(Substring.Match::index).orElse(-1))
+          .isEqualTo(input.lastIndexOf(needle));
+      assertThat(last(needle).in(new StringBuilder(input)).map(Substring.Match::index).orElse(-1))
+          .isEqualTo(input.lastIndexOf(needle));
+    }
+  }
+
+  @Test
+  public void singleCharPredicate() {
+    assertThat(first(CharPredicate.is('-')).repeatedly().from("a-b--c"))
+        .containsExactly("-", "-", "-");
+    assertThat(first(CharPredicate.is('-')).toString()).isEqualTo("first('-')");
+    assertThat(last(CharPredicate.is('-')).in("a-b--c").map(Substring.Match::index)).hasValue(4);
+    assertThat(consecutive(CharPredicate.is('-')).repeatedly().from("a-b--c---"))
+        .containsExactly("-", "--", "---")
+        .inOrder();
+    assertThat(consecutive(CharPredicate.is('-')).from("abc")).isEmpty();
+    assertThat(consecutive(CharPredicate.is('-')).repeatedly().from(new StringBuilder("--x-")))
+        .containsExactly("--", "-")
+        .inOrder();
+  }
+
+  @Test
+  public void splitInParallel_singleChar() {
+    String input = repeat("foo,bar,,baz", 5000) + ",";
+    assertThat(
+            first(',').repeatedly().splitInParallel(input).map(Object::toString).collect(toList()))
+        .containsExactlyElementsIn(
+            first(',').repeatedly().split(input).map(Object::toString).collect(toList()))
+        .inOrder();
+  }
+
+  @Test
+  public void splitInParallel_literal() {
+    String input = repeat("k=v\r\n\r\nline\r\n", 3000);
+    assertThat(
+            Substring.all("\r\n").splitInParallel(input).map(Object::toString).collect(toList()))
+        .containsExactlyElementsIn(
+            Substring.all("\r\n").split(input).map(Object::toString).collect(toList()))
+        .inOrder();
+  }
+
+  @Test
+  public void splitInParallel_selfOverlappingLiteral() {
+    String input = repeat("xaaab", 3000);
+    assertThat(Substring.all("aa").splitInParallel(input).map(Object::toString).collect(toList()))
+        .containsExactlyElementsIn(
+            Substring.all("aa").split(input).map(Object::toString).collect(toList()))
+        .inOrder();
+  }
+
+  @Test
+  public void splitInParallel_nonLiteral() {
+    String input = repeat("a1b22c333", 3000);
+    assertThat(
+            consecutive(DIGIT)
+                .repeatedly()
+                .splitInParallel(input)
+                .map(Object::toString)
+                .collect(toList()))
+        .containsExactlyElementsIn(
+            consecutive(DIGIT).repeatedly().split(input).map(Object::toString).collect(toList()))
+        .inOrder();
+  }
+
+  @Test
+  public void splitInParallel_smallInput() {
+    assertThat(first(',').repeatedly().splitInParallel("").map(Object::toString))
+        .containsExactly("");
+    assertThat(first(',').repeatedly().splitInParallel("a,b").map(Object::toString))
+        .containsExactly("a", "b")
+        .inOrder();
+    assertThat(first(',').repeatedly().splitInParallel(",").map(Object::toString))
+        .containsExactly("", "");
+  }
+
+  @Test
+  public void splitInParallel_isParallel() {
+    assertThat(first(',').repeatedly().splitInParallel("a,b").isParallel()).isTrue();
+    assertThat(consecutive(DIGIT).repeatedly().splitInParallel("a,b").isParallel()).isTrue();
+  }
+
   @Test
   public void firstOccurrence_noPattern() {
     Substring.Pattern pattern = Stream.<Substring.Pattern>empty().collect(firstOccurrence());
@@ -3006,6 +3613,148 @@ public class SubstringTest {
         .containsExactly("foo", "dog");
   }
 
+  @Test
+  public void firstOccurrence_manyLiterals_leftmostWins() {
+    Substring.Pattern pattern =
+        Stream.of("dog", "cat", "catfish", "fish", "og", "at")
+            .map(Substring::first)
+            .collect(firstOccurrence());
+    assertThat(pattern.from("hotdog catfish")).hasValue("dog");
+    assertThat(pattern.in("hotdog catfish", 7).map(Match::index)).hasValue(7);
+    assertThat(pattern.repeatedly().from("hotdog catfish fish goat"))
+        .containsExactly("dog", "cat", "fish", "fish", "at")
+        .inOrder();
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_longerLaterCandidateDoesNotBeatEarlierCandidate() {
+    Substring.Pattern pattern =
+        Stream.of("ab", "abc", "abcd", "x")
+            .map(Substring::first)
+            .collect(firstOccurrence());
+    assertThat(pattern.repeatedly().from("abcd abc ab")).containsExactly("ab", "ab", "ab");
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_longerEarlierCandidateWinsTie() {
+    Substring.Pattern pattern =
+        Stream.of("abcd", "abc", "ab", "x")
+            .map(Substring::first)
+            .collect(firstOccurrence());
+    assertThat(pattern.repeatedly().from("abcd abc ab xab"))
+        .containsExactly("abcd", "abc", "ab", "x", "ab")
+        .inOrder();
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_suffixOfAnotherCandidate() {
+    Substring.Pattern pattern =
+        Stream.of("bcde", "cd", "xyz", "y")
+            .map(Substring::first)
+            .collect(firstOccurrence());
+    assertThat(pattern.repeatedly().from("abcdxyz")).containsExactly("cd", "xyz").inOrder();
+    assertThat(pattern.repeatedly().from("abcdexyy")).containsExactly("bcde", "y", "y").inOrder();
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_duplicateCandidates() {
+    Substring.Pattern pattern =
+        Stream.of("foo", "bar", "foo", "bar")
+            .map(Substring::first)
+            .collect(firstOccurrence());
+    assertThat(pattern.repeatedly().from("barfoo")).containsExactly("bar", "foo").inOrder();
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_nonAscii() {
+    Substring.Pattern pattern =
+        Stream.of("\u4f60\u597d", "\u4e16\u754c", "hello", "\u00e9t\u00e9")
+            .map(Substring::first)
+            .collect(firstOccurrence());
+    assertThat(pattern.repeatedly().from("hello, \u4f60\u597d\u4e16\u754c! \u00e9t\u00e9\u00e9"))
+        .containsExactly("hello", "\u4f60\u597d", "\u4e16\u754c", "\u00e9t\u00e9")
+        .inOrder();
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_nonAscii_sameAsIndividualCandidates() {
+    // A small mixed alphabet, so that keywords share prefixes and suffixes across char ranges.
+    String alphabet = "ab\u00e9\u4f60\u597d\uac00";
+    Random random = new Random(1);
+    for (int round = 0; round < 50; round++) {
+      List<String> keywords = new ArrayList<>();
+      for (int k = 0; k < 8; k++) {
+        keywords.add(randomString(random, alphabet, 1 + random.nextInt(4)));
+      }
+      Substring.Pattern compiled =
+          keywords.stream().map(Substring::first).collect(firstOccurrence());
+      Substring.Pattern uncompiled =
+          keywords.stream().map(Substring::first).map(p -> p.limit(100)).collect(firstOccurrence());
+      String input =
+          randomString(random, alphabet, 60) + "\u4e16x" + randomString(random, alphabet, 20);
+      assertThat(compiled.repeatedly().match(input).map(m -> m.index() + ":" + m).toArray())
+          .isEqualTo(uncompiled.repeatedly().match(input).map(m -> m.index() + ":" + m).toArray());
+    }
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_largeNonAsciiAlphabet() {
+    List<String> keywords = new ArrayList<>();
+    for (char c = '\u4e00'; c < '\u4e00' + 5000; c += 2) {
+      keywords.add(new String(new char[] {c, (char) (c + 1)}));
+    }
+    Substring.Pattern pattern = keywords.stream().map(Substring::first).collect(firstOccurrence());
+    assertThat(pattern.repeatedly().from("x\u4e01\u4e02\u4e02\u4e03\u00e9\u4e10\u4e11"))
+        .containsExactly("\u4e02\u4e03", "\u4e10\u4e11")
+        .inOrder();
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_mixedWithChars() {
+    Substring.Pattern pattern =
+        Stream.of(first("=="), first('='), first("!="), first('!'))
+            .collect(firstOccurrence());
+    assertThat(pattern.repeatedly().from("a==b!=c=!d"))
+        .containsExactly("==", "!=", "=", "!")
+        .inOrder();
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_withEmptyLiteral() {
+    Substring.Pattern pattern =
+        Stream.of("foo", "bar", "baz", "")
+            .map(Substring::first)
+            .collect(firstOccurrence());
+    assertThat(pattern.repeatedly().from("xbar")).containsExactly("", "bar", "");
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_sameAsIndividualCandidates() {
+    ImmutableList<String> keywords =
+        ImmutableList.of("a", "ab", "ba", "bab", "abba", "bb", "aab", "baa");
+    Substring.Pattern compiled =
+        keywords.stream().map(Substring::first).collect(firstOccurrence());
+    Substring.Pattern uncompiled =
+        keywords.stream().map(Substring::first).map(p -> p.limit(100)).collect(firstOccurrence());
+    String input = "abbabaabbbaababaaabbababbbabaab";
+    for (int i = 0; i <= input.length(); i++) {
+      assertThat(compiled.repeatedly().match(input, i).map(m -> m.index() + ":" + m).toArray())
+          .isEqualTo(uncompiled.repeatedly().match(input, i).map(m -> m.index() + ":" + m).toArray());
+    }
+  }
+
+  @Test
+  public void firstOccurrence_manyLiterals_separatedBy() {
+    Substring.Pattern pattern =
+        Stream.of("foo", "food", "dog", "do")
+            .map(Substring::first)
+            .collect(firstOccurrence())
+            .separatedBy(Character::isWhitespace);
+    assertThat(pattern.repeatedly().from("food foodog do dog"))
+        .containsExactly("food", "do", "dog")
+        .inOrder();
+  }
+
   @Test
   public void firstOccurrence_word() {
     Substring.Pattern pattern =
@@ -3163,6 +3912,19 @@ public class SubstringTest {
     assertThat(trailing(DIGIT).repeatedly().from("11")).containsExactly("11");
   }
 
+  @Test
+  public void charPredicatePatterns_predicateNotSnapshotted() {
+    StringBuilder allowed = new StringBuilder();
+    CharPredicate isAllowed = c -> allowed.indexOf(String.valueOf(c)) >= 0;
+    Substring.Pattern consecutive = consecutive(isAllowed);
+    Substring.Pattern first = first(isAllowed);
+    Substring.Pattern leading = leading(isAllowed);
+    allowed.append("ab");
+    assertThat(consecutive.from("xabx")).hasValue("ab");
+    assertThat(first.from("xbx")).hasValue("b");
+    assertThat(leading.from("bax")).hasValue("ba");
+  }
+
   @Test
   public void consecutive_noMatch() {
     assertThat(consecutive(ALPHA).from(" ")).isEmpty();
@@ -4038,6 +4800,42 @@ public class SubstringTest {
         });
   }
 
+  /** Returns a Reader that reads at most 3 chars at a time, to exercise chunk boundaries. */
+  /** Returns a reader of {@code length} copies of {@code c}, without holding them in memory. */
+  private static Reader filler(char c, int length) {
+    return new Reader() {
+      private int remaining = length;
+
+      @Override public int read(char[] buf, int off, int len) {
+        if (remaining == 0) {
+          return -1;
+        }
+        int read = Math.min(len, remaining);
+        Arrays.fill(buf, off, off + read, c);
+        remaining -= read;
+        return read;
+      }
+
+      @Override public void close() {}
+    };
+  }
+
+  private static Reader trickle(String input) {
+    return new FilterReader(new StringReader(input)) {
+      @Override public int read(char[] buf, int off, int len) throws IOException {
+        return super.read(buf, off, Math.min(len, 3));
+      }
+    };
+  }
+
+  private static String randomString(Random random, String alphabet, int length) {
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    }
+    return builder.toString();
+  }
+
   private static String repeat(String s, int times) {
     return String.join("", nCopies(times, s));
   }
@@ -24,6 +24,13 @@ public final class FanoutTest {
     assertThat(concurrently(() -> "foo", () -> "bar", String::concat)).isEqualTo("foobar");
   }
 
+  @Test
+  public void concurrently_pluginListenerNotified() {
+    Java8ExecutorPlugin.finishedTasks.set(0);
+    assertThat(concurrently(() -> "foo", () -> "bar", String::concat)).isEqualTo("foobar");
+    assertThat(Java8ExecutorPlugin.finishedTasks.get()).isEqualTo(2);
+  }
+
   @Test
   public void concurrently_threeOperations() {
     assertThat(
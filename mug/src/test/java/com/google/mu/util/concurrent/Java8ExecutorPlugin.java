@@ -2,13 +2,23 @@ package com.google.mu.util.concurrent;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Java8ExecutorPlugin extends StructuredConcurrencyExecutorPlugin {
+  static final AtomicInteger finishedTasks = new AtomicInteger();
 
   @Override protected ExecutorService createExecutor() {
     return Executors.newCachedThreadPool();
   }
 
+  @Override protected TaskListener taskListener() {
+    return new TaskListener() {
+      @Override public void taskFinished(long runNanos, int inFlight) {
+        finishedTasks.incrementAndGet();
+      }
+    };
+  }
+
   @Override protected Priority priority() {
     return Priority.APPLICATION_SPECIFIC;
   }
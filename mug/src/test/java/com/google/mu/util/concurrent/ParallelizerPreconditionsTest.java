@@ -54,7 +54,9 @@ public class ParallelizerPreconditionsTest {
   }
 
   @Test public void testNulls() {
-    new ClassSanityTester().testNulls(Parallelizer.class);
+    new ClassSanityTester()
+        .setDefault(TaskListener.class, new TaskListener() {})
+        .testNulls(Parallelizer.class);
     Parallelizer parallelizer = new Parallelizer(threadPool, 1);
     assertThrows(
         NullPointerException.class,
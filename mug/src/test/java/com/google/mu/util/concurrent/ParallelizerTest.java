@@ -26,21 +26,27 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.junit.After;
@@ -54,8 +60,10 @@ import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Range;
 import com.google.common.truth.IterableSubject;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.testing.junit.testparameterinjector.TestParameter;
 import com.google.testing.junit.testparameterinjector.TestParameterInjector;
 
@@ -114,6 +122,473 @@ public class ParallelizerTest {
       Parallelizer parallelizer = new Parallelizer(threadPool, 3);
       assertThrows(NullPointerException.class, () -> parallelizer.inParallel(null));
     }
+
+    @Test public void testParallelizeInChunks() throws InterruptedException {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      ConcurrentLinkedQueue<Integer> consumed = new ConcurrentLinkedQueue<>();
+      parallelizer.parallelizeInChunks(IntStream.range(0, 100).boxed(), 7, consumed::add);
+      assertThat(consumed).containsExactlyElementsIn(
+          IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+    }
+
+    @Test public void testParallelizeInChunks_emptyInputStream() throws InterruptedException {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      ConcurrentLinkedQueue<Object> consumed = new ConcurrentLinkedQueue<>();
+      parallelizer.parallelizeInChunks(Stream.empty(), 7, consumed::add);
+      assertThat(consumed).isEmpty();
+    }
+
+    @Test public void testParallelizeInChunks_failure() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      RuntimeException thrown = assertThrows(
+          RuntimeException.class,
+          () -> parallelizer.parallelizeInChunks(IntStream.range(0, 100).boxed(), 10, i -> {
+            Preconditions.checkState(i != 42);
+          }));
+      assertThat(thrown).hasCauseThat().isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test public void testParallelizeInChunks_interruptedChunkFails() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      ConcurrentLinkedQueue<Integer> consumed = new ConcurrentLinkedQueue<>();
+      RuntimeException thrown = assertThrows(
+          RuntimeException.class,
+          () -> parallelizer.parallelizeInChunks(IntStream.range(0, 20).boxed(), 5, i -> {
+            consumed.add(i);
+            if (i == 3) Thread.currentThread().interrupt();
+          }));
+      Thread.interrupted(); // The DIRECT executor runs tasks in the test thread.
+      assertThat(thrown).hasCauseThat().isInstanceOf(StructuredConcurrencyInterruptedException.class);
+      assertThat(consumed).doesNotContain(4); // The rest of the interrupted chunk is skipped.
+    }
+
+    @Test public void testParallelizeInChunks_invalidChunkSize() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> parallelizer.parallelizeInChunks(Stream.of(1), 0, i -> {}));
+    }
+
+    @Test public void testMap_emptyInputStream() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      assertThat(parallelizer.map(Stream.empty(), Object::toString).collect(Collectors.toList()))
+          .isEmpty();
+    }
+
+    @Test public void testMap_outputsInEncounterOrder() {
+      assumeFalse(threading == Threading.DIRECT);
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      List<Integer> inputs = IntStream.range(0, 51).boxed().collect(Collectors.toList());
+      List<CountDownLatch> done =
+          inputs.stream().map(i -> new CountDownLatch(1)).collect(Collectors.toList());
+      Stream<String> outputs = parallelizer.map(inputs.stream(), i -> {
+        // In each group of 3 concurrent tasks, the later tasks finish first.
+        if (i % 3 < 2) {
+          Uninterruptibles.awaitUninterruptibly(done.get(i + 1));
+        }
+        done.get(i).countDown();
+        return i.toString();
+      }, 5);
+      assertThat(outputs.collect(Collectors.toList()))
+          .containsExactlyElementsIn(inputs.stream().map(Object::toString).toArray())
+          .inOrder();
+    }
+
+    @Test public void testMap_shortTasksRunConcurrently() {
+      assumeFalse(threading == Threading.DIRECT);
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      CountDownLatch allRunning = new CountDownLatch(3);
+      Stream<Integer> outputs = parallelizer.map(Stream.of(0, 1, 2, 3), i -> {
+        if (i == 0) {
+          return i; // Already done by the time the consumer asks for it.
+        }
+        // Only returns if tasks 1, 2 and 3 are all running at once.
+        allRunning.countDown();
+        Uninterruptibles.awaitUninterruptibly(allRunning);
+        return i;
+      }, 3);
+      assertThat(outputs.collect(Collectors.toList())).containsExactly(0, 1, 2, 3).inOrder();
+    }
+
+    @Test public void testMap_bufferRefilledWhenHeadIsDone() {
+      assumeTrue(threading == Threading.DIRECT); // Every task is done as soon as it's boarded.
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      AtomicInteger pulled = new AtomicInteger();
+      Iterator<Integer> outputs =
+          parallelizer
+              .map(IntStream.range(0, 10).boxed().peek(i -> pulled.incrementAndGet()), i -> i, 3)
+              .iterator();
+      assertThat(outputs.next()).isEqualTo(0);
+      assertThat(pulled.get()).isEqualTo(3);
+      assertThat(outputs.next()).isEqualTo(1);
+      assertThat(outputs.next()).isEqualTo(2);
+      assertThat(outputs.hasNext()).isTrue();
+      assertThat(pulled.get()).isEqualTo(6);
+    }
+
+    @Test public void testMap_boundedBuffer() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 2);
+      AtomicInteger pulled = new AtomicInteger();
+      AtomicInteger consumed = new AtomicInteger();
+      parallelizer
+          .map(IntStream.range(0, 100).boxed().peek(i -> pulled.incrementAndGet()), i -> i, 4)
+          .forEach(i -> {
+            assertThat(i).isEqualTo(consumed.getAndIncrement());
+            assertThat(pulled.get() - i).isAtMost(4);
+          });
+      assertThat(consumed.get()).isEqualTo(100);
+    }
+
+    @Test public void testMap_inputsPulledOnDemand() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      AtomicInteger pulled = new AtomicInteger();
+      Stream<Integer> infinite = Stream.iterate(0, i -> i + 1).peek(i -> pulled.incrementAndGet());
+      try (Stream<Integer> outputs = parallelizer.map(infinite, i -> i * 2, 3)) {
+        assertThat(outputs.limit(5).collect(Collectors.toList()))
+            .containsExactly(0, 2, 4, 6, 8)
+            .inOrder();
+      }
+      assertThat(pulled.get()).isAtMost(8);
+    }
+
+    @Test public void testMap_failure() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      RuntimeException thrown = assertThrows(
+          RuntimeException.class,
+          () -> parallelizer.map(Stream.of(1, 2, 3, 4, 5), i -> {
+            Preconditions.checkState(i < 3);
+            return i.toString();
+          }).forEach(i -> {}));
+      assertThat(thrown).hasCauseThat().isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test public void testMap_invalidBufferSize() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      assertThrows(
+          IllegalArgumentException.class, () -> parallelizer.map(Stream.of(1), i -> i, 0));
+      assertThrows(
+          IllegalArgumentException.class, () -> parallelizer.map(Stream.of(1), i -> i, -1));
+    }
+
+    @Test public void testMap_nulls() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3);
+      assertThrows(NullPointerException.class, () -> parallelizer.map(null, i -> i));
+      assertThrows(NullPointerException.class, () -> parallelizer.map(Stream.of(1), null));
+    }
+  }
+
+  @RunWith(TestParameterInjector.class)
+  public static class AdaptiveConcurrencyTest {
+    @TestParameter private Threading threading;
+    private ExecutorService threadPool;
+
+    @Before public void initialize() {
+      threadPool = threading.newExecutorService();
+    }
+
+    @After public void shutdown() {
+      threadPool.shutdownNow();
+    }
+
+    @Test public void fixedConcurrency() {
+      assertThat(new Parallelizer(threadPool, 3).currentConcurrency()).isEqualTo(3);
+    }
+
+    @Test public void startsFromMinConcurrency() {
+      assertThat(Parallelizer.adaptive(threadPool, 2, 10).currentConcurrency()).isEqualTo(2);
+    }
+
+    @Test public void successfulTasksIncreaseConcurrency() throws InterruptedException {
+      Parallelizer parallelizer = Parallelizer.adaptive(threadPool, 1, 8);
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger maxRunning = new AtomicInteger();
+      parallelizer.parallelize(IntStream.range(0, 200).boxed(), i -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        running.decrementAndGet();
+      });
+      assertThat(parallelizer.currentConcurrency()).isGreaterThan(1);
+      assertThat(maxRunning.get()).isAtMost(8);
+    }
+
+    @Test public void increasedConcurrencyRunsTasksAtOnce() throws InterruptedException {
+      assumeFalse(threading == Threading.DIRECT);
+      Parallelizer parallelizer = Parallelizer.adaptive(threadPool, 1, 8);
+      parallelizer.parallelize(IntStream.range(0, 200).boxed(), i -> {});
+      assertThat(parallelizer.currentConcurrency()).isGreaterThan(1);
+      // Two tasks waiting for each other can only complete if they run at once.
+      CountDownLatch bothRunning = new CountDownLatch(2);
+      AtomicInteger metEachOther = new AtomicInteger();
+      parallelizer.parallelize(Stream.of(1, 2), i -> {
+        bothRunning.countDown();
+        if (Uninterruptibles.awaitUninterruptibly(bothRunning, 10, TimeUnit.SECONDS)) {
+          metEachOther.incrementAndGet();
+        }
+      });
+      assertThat(metEachOther.get()).isEqualTo(2);
+    }
+
+    @Test public void failedTasksDecreaseConcurrency() throws InterruptedException {
+      Parallelizer parallelizer = Parallelizer.adaptive(threadPool, 1, 8);
+      parallelizer.parallelize(IntStream.range(0, 200).boxed(), i -> {});
+      int grown = parallelizer.currentConcurrency();
+      assertThat(grown).isGreaterThan(1);
+      for (int i = 0; i < 20; i++) {
+        assertThrows(
+            RuntimeException.class,
+            () -> parallelizer.parallelize(Stream.of(1), n -> {
+              throw new IllegalStateException();
+            }));
+      }
+      assertThat(parallelizer.currentConcurrency()).isLessThan(grown);
+    }
+
+    @Test public void concurrencyBoundedByMax() throws InterruptedException {
+      Parallelizer parallelizer = Parallelizer.adaptive(threadPool, 1, 3);
+      parallelizer.parallelize(IntStream.range(0, 1000).boxed(), i -> {});
+      assertThat(parallelizer.currentConcurrency()).isAtMost(3);
+    }
+
+    @Test public void orderedMapping() {
+      Parallelizer parallelizer = Parallelizer.adaptive(threadPool, 1, 5);
+      assertThat(parallelizer.map(IntStream.range(0, 100).boxed(), i -> i * 2, 10)
+              .collect(Collectors.toList()))
+          .isEqualTo(IntStream.range(0, 100).map(i -> i * 2).boxed().collect(Collectors.toList()));
+    }
+
+    @Test public void invalidConcurrency() {
+      assertThrows(IllegalArgumentException.class, () -> Parallelizer.adaptive(threadPool, 0, 3));
+      assertThrows(IllegalArgumentException.class, () -> Parallelizer.adaptive(threadPool, 4, 3));
+      assertThrows(NullPointerException.class, () -> Parallelizer.adaptive(null, 1, 3));
+    }
+  }
+
+  public static class AdaptiveConcurrencyLimitTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test public void steadyLatency_growsToMax() {
+      Parallelizer.AdaptiveConcurrency concurrency = new Parallelizer.AdaptiveConcurrency(1, 16);
+      for (int i = 0; i < 1000; i++) {
+        concurrency.record(MILLIS, true);
+      }
+      assertThat(concurrency.limit()).isEqualTo(16);
+    }
+
+    @Test public void heavyTailedLatency_staysNearMax() {
+      Parallelizer.AdaptiveConcurrency concurrency = new Parallelizer.AdaptiveConcurrency(1, 16);
+      Random random = new Random(1);
+      int minLimitAfterWarmup = Integer.MAX_VALUE;
+      for (int i = 0; i < 5000; i++) {
+        // One in 5 tasks is 5x slower than usual.
+        concurrency.record(random.nextInt(5) == 0 ? 5 * MILLIS : MILLIS, true);
+        if (i >= 1000) {
+          minLimitAfterWarmup = Math.min(minLimitAfterWarmup, concurrency.limit());
+        }
+      }
+      assertThat(minLimitAfterWarmup).isAtLeast(14);
+    }
+
+    @Test public void noisyLatency_staysNearMax() {
+      Parallelizer.AdaptiveConcurrency concurrency = new Parallelizer.AdaptiveConcurrency(1, 16);
+      Random random = new Random(1);
+      int minLimitAfterWarmup = Integer.MAX_VALUE;
+      for (int i = 0; i < 5000; i++) {
+        concurrency.record(MILLIS / 2 + (long) (random.nextDouble() * MILLIS), true);
+        if (i >= 1000) {
+          minLimitAfterWarmup = Math.min(minLimitAfterWarmup, concurrency.limit());
+        }
+      }
+      assertThat(minLimitAfterWarmup).isEqualTo(16);
+    }
+
+    @Test public void sustainedSlowdown_backsOff() {
+      Parallelizer.AdaptiveConcurrency concurrency = new Parallelizer.AdaptiveConcurrency(1, 16);
+      for (int i = 0; i < 1000; i++) {
+        concurrency.record(MILLIS, true);
+      }
+      for (int i = 0; i < 100; i++) {
+        concurrency.record(10 * MILLIS, true);
+      }
+      assertThat(concurrency.limit()).isLessThan(16);
+    }
+
+    @Test public void burstOfFailures_backsOffOncePerRound() {
+      Parallelizer.AdaptiveConcurrency concurrency = new Parallelizer.AdaptiveConcurrency(1, 10);
+      for (int i = 0; i < 1000; i++) {
+        concurrency.record(MILLIS, true);
+      }
+      for (int i = 0; i < 10; i++) { // All tasks in flight fail.
+        concurrency.record(MILLIS, false);
+      }
+      assertThat(concurrency.limit()).isEqualTo(9);
+      concurrency.record(MILLIS, false);
+      assertThat(concurrency.limit()).isEqualTo(8);
+    }
+
+    @Test public void persistentFailures_shrinkToMin() {
+      Parallelizer.AdaptiveConcurrency concurrency = new Parallelizer.AdaptiveConcurrency(2, 10);
+      for (int i = 0; i < 1000; i++) {
+        concurrency.record(MILLIS, true);
+      }
+      for (int i = 0; i < 1000; i++) {
+        concurrency.record(MILLIS, false);
+      }
+      assertThat(concurrency.limit()).isEqualTo(2);
+    }
+  }
+
+  @RunWith(TestParameterInjector.class)
+  public static class TaskListenerTest {
+    @TestParameter private Threading threading;
+    private ExecutorService threadPool;
+    private final RecordingListener listener = new RecordingListener();
+
+    @Before public void initialize() {
+      threadPool = threading.newExecutorService();
+    }
+
+    @After public void shutdown() {
+      threadPool.shutdownNow();
+    }
+
+    @Test public void successfulTasks() throws InterruptedException {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3).withListener(listener);
+      parallelizer.parallelize(IntStream.range(0, 10).boxed(), i -> {});
+      assertThat(listener.queued.get()).isEqualTo(10);
+      assertThat(listener.started.get()).isEqualTo(10);
+      assertThat(listener.finished.get()).isEqualTo(10);
+      assertThat(listener.failed.get()).isEqualTo(0);
+      assertThat(listener.maxInFlight.get()).isIn(Range.closed(1, 3));
+    }
+
+    @Test public void failedTask() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 1).withListener(listener);
+      assertThrows(
+          RuntimeException.class,
+          () -> parallelizer.parallelize(Stream.of(1), i -> {
+            throw new IllegalStateException();
+          }));
+      assertThat(listener.failed.get()).isEqualTo(1);
+      assertThat(listener.finished.get()).isEqualTo(0);
+    }
+
+    @Test public void orderedMapping() {
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3).withListener(listener);
+      assertThat(parallelizer.map(Stream.of(1, 2, 3), i -> i * 10).collect(Collectors.toList()))
+          .containsExactly(10, 20, 30)
+          .inOrder();
+      assertThat(listener.queued.get()).isEqualTo(3);
+      assertThat(listener.finished.get()).isEqualTo(3);
+    }
+
+    @Test public void canceledBeforeStarting_noLongerInFlight() throws InterruptedException {
+      CountDownLatch allBoarded = new CountDownLatch(1);
+      CountDownLatch released = new CountDownLatch(1);
+      // Holds the worker before running any task but the first, so that they are canceled pending.
+      ExecutorService singleThread =
+          new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            private boolean first = true; // Only accessed by the worker thread.
+
+            @Override protected void beforeExecute(Thread thread, Runnable task) {
+              if (!first) Uninterruptibles.awaitUninterruptibly(released);
+              first = false;
+            }
+          };
+      try {
+        Parallelizer parallelizer = new Parallelizer(singleThread, 3).withListener(listener);
+        Stream<Integer> inputs =
+            Stream.concat(
+                Stream.of(1, 2, 3),
+                Stream.of(4).filter(i -> {
+                  allBoarded.countDown();
+                  return false;
+                }));
+        assertThrows(
+            RuntimeException.class,
+            () -> parallelizer.parallelize(inputs, i -> {
+              Uninterruptibles.awaitUninterruptibly(allBoarded);
+              throw new IllegalStateException();
+            }));
+        assertThat(listener.queued.get()).isEqualTo(3);
+        assertThat(listener.started.get()).isEqualTo(1);
+        assertThat(listener.failed.get()).isEqualTo(1);
+        assertThat(listener.canceled.get()).isEqualTo(2);
+        assertThat(listener.lastInFlight.get()).isEqualTo(0);
+      } finally {
+        released.countDown();
+        singleThread.shutdownNow();
+      }
+    }
+
+    @Test public void orderedMapping_failureAfterClose_orphaned() throws InterruptedException {
+      assumeFalse(threading == Threading.DIRECT);
+      CountDownLatch secondStarted = new CountDownLatch(1);
+      CountDownLatch closed = new CountDownLatch(1);
+      Parallelizer parallelizer = new Parallelizer(threadPool, 3).withListener(listener);
+      try (Stream<Integer> outputs = parallelizer.map(Stream.of(1, 2), i -> {
+        if (i == 1) {
+          Uninterruptibles.awaitUninterruptibly(secondStarted);
+          return 10;
+        }
+        secondStarted.countDown();
+        Uninterruptibles.awaitUninterruptibly(closed);
+        throw new IllegalStateException();
+      })) {
+        assertThat(outputs.iterator().next()).isEqualTo(10);
+      }
+      closed.countDown();
+      assertThat(listener.orphans.take()).isInstanceOf(IllegalStateException.class);
+      assertThat(listener.failed.get()).isEqualTo(1);
+    }
+
+    @Test public void withListener_sharesAdaptiveLimit() throws InterruptedException {
+      Parallelizer adaptive = Parallelizer.adaptive(threadPool, 1, 8);
+      Parallelizer listened = adaptive.withListener(listener);
+      listened.parallelize(IntStream.range(0, 100).boxed(), i -> {});
+      assertThat(adaptive.currentConcurrency()).isEqualTo(listened.currentConcurrency());
+    }
+
+    @Test public void withListener_null() {
+      assertThrows(
+          NullPointerException.class, () -> new Parallelizer(threadPool, 1).withListener(null));
+    }
+
+    private static final class RecordingListener extends TaskListener {
+      final AtomicInteger queued = new AtomicInteger();
+      final AtomicInteger started = new AtomicInteger();
+      final AtomicInteger finished = new AtomicInteger();
+      final AtomicInteger failed = new AtomicInteger();
+      final AtomicInteger maxInFlight = new AtomicInteger();
+      final AtomicInteger canceled = new AtomicInteger();
+      final AtomicInteger lastInFlight = new AtomicInteger(-1);
+      final BlockingQueue<Throwable> orphans = new LinkedBlockingQueue<>();
+
+      @Override public void taskQueued(long permitWaitNanos, int inFlight) {
+        assertThat(permitWaitNanos).isAtLeast(0);
+        queued.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight, Math::max);
+      }
+
+      @Override public void taskStarted(long queueNanos, int inFlight) {
+        started.incrementAndGet();
+      }
+
+      @Override public void taskFinished(long runNanos, int inFlight) {
+        finished.incrementAndGet();
+      }
+
+      @Override public void taskFailed(Throwable exception, long runNanos, int inFlight) {
+        failed.incrementAndGet();
+      }
+
+      @Override public void taskOrphaned(Throwable exception) {
+        orphans.add(exception);
+      }
+
+      @Override public void taskCanceled(int inFlight) {
+        canceled.incrementAndGet();
+        lastInFlight.set(inFlight);
+      }
+    }
   }
 
   @RunWith(TestParameterInjector.class)